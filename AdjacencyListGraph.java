@@ -1,36 +1,157 @@
 package graphs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
-public class AdjacencyListGraph<T> extends Graph<T> {
+public class AdjacencyListGraph<T> extends Graph<T> implements IndexedGraph<T> {
 	Map<T, Vertex> keyToVertex;
+	List<Vertex> indexToVertex;
+	int modCount;
+	StronglyConnectedComponents<T> components;
+	ReachabilityIndex<T> reachability;
+	WeaklyConnectedComponents<T> weakComponents;
+	BreadthFirstSearch<T> search;
 
 	private class Vertex {
 		T key;
+		int index;
 		List<Vertex> successors;
 		List<Vertex> predecessors;
+		// where each edge sits in the other endpoint's list: successors[i]
+		// has this vertex at predecessors[successorSlots[i]], and the same
+		// the other way round
+		IntArrayList successorSlots;
+		IntArrayList predecessorSlots;
 
-		Vertex(T key) {
+		Vertex(T key, int index) {
 			this.key = key;
+			this.index = index;
 			this.successors = new ArrayList<Vertex>();
 			this.predecessors = new ArrayList<Vertex>();
+			this.successorSlots = new IntArrayList();
+			this.predecessorSlots = new IntArrayList();
 		}
 	}
 
 	AdjacencyListGraph(Set<T> keys) {
 		this.keyToVertex = new HashMap<T, Vertex>();
+		this.indexToVertex = new ArrayList<Vertex>(keys.size());
 		for (T key : keys) {
-			Vertex v = new Vertex(key);
+			Vertex v = new Vertex(key, this.indexToVertex.size());
 			this.keyToVertex.put(key, v);
+			this.indexToVertex.add(v);
+		}
+	}
+
+	public CsrGraph<T> freeze() {
+		return CsrGraph.of(this);
+	}
+
+	public boolean addVertex(T key) {
+		if (key == null) {
+			throw new IllegalArgumentException();
+		}
+		if (this.keyToVertex.containsKey(key)) {
+			return false;
+		}
+		Vertex v = new Vertex(key, this.indexToVertex.size());
+		this.keyToVertex.put(key, v);
+		this.indexToVertex.add(v);
+		this.components = null;
+		this.reachability = null;
+		if (this.weakComponents != null) {
+			this.weakComponents.grow(this.indexToVertex.size());
+		}
+		this.modCount++;
+		return true;
+	}
+
+	// unlinks the vertex from its neighbors' lists, then moves the last
+	// vertex into its index so indices stay dense. The slots say where each
+	// edge sits in the neighbor's list, so this is O(degree)
+	public boolean removeVertex(T key) {
+		Vertex v = this.keyToVertex.remove(key);
+		if (v == null) {
+			return false;
+		}
+		while (!v.successors.isEmpty()) {
+			unlink(v, v.successors.size() - 1);
+		}
+		while (!v.predecessors.isEmpty()) {
+			int last = v.predecessors.size() - 1;
+			unlink(v.predecessors.get(last), v.predecessorSlots.get(last));
+		}
+		Vertex last = this.indexToVertex.remove(this.indexToVertex.size() - 1);
+		if (last != v) {
+			last.index = v.index;
+			this.indexToVertex.set(v.index, last);
+		}
+		this.components = null;
+		this.reachability = null;
+		this.weakComponents = null;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public int indexCapacity() {
+		return this.indexToVertex.size();
+	}
+
+	@Override
+	public int indexOf(T key) {
+		Vertex v = this.keyToVertex.get(key);
+		if (v == null) {
+			throw new NoSuchElementException();
+		}
+		return v.index;
+	}
+
+	@Override
+	public T keyAt(int index) {
+		return this.indexToVertex.get(index).key;
+	}
+
+	@Override
+	public int outDegreeAt(int index) {
+		return this.indexToVertex.get(index).successors.size();
+	}
+
+	@Override
+	public int inDegreeAt(int index) {
+		return this.indexToVertex.get(index).predecessors.size();
+	}
+
+	// visits neighbor indices straight off the vertex lists without
+	// allocating; indexOf and keyAt convert between keys and indices
+	@Override
+	public void forEachSuccessor(int index, IntConsumer action) {
+		visit(this.indexToVertex.get(index).successors, action);
+	}
+
+	@Override
+	public void forEachPredecessor(int index, IntConsumer action) {
+		visit(this.indexToVertex.get(index).predecessors, action);
+	}
+
+	private void visit(List<Vertex> neighbors, IntConsumer action) {
+		int expectedModCount = this.modCount;
+		for (int i = 0; i < neighbors.size(); i++) {
+			action.accept(neighbors.get(i).index);
+			if (this.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
 		}
 	}
 
@@ -58,14 +179,58 @@ public class AdjacencyListGraph<T> extends Graph<T> {
 		List<Vertex> succ = fromV.successors;
 		List<Vertex> pred = toV.predecessors;
 		if (!succ.contains(toV) && !pred.contains(fromV)) {
-			succ.add(toV);
-			pred.add(fromV);
+			link(fromV, toV);
+			this.components = null;
+			if (this.reachability != null && !this.reachability.addEdge(from, to)) {
+				this.reachability = null;
+			}
+			if (this.weakComponents != null) {
+				this.weakComponents.union(fromV.index, toV.index);
+			}
+			this.modCount++;
 			return true;
 		}
 
 		return false;
 	}
 
+	// sorts and deduplicates the batch, then checks it against the existing
+	// successors of each source once instead of once per edge; returns how
+	// many edges were not already present
+	public int addEdges(Iterable<Edge<T>> edges) {
+		long[] buffer = new long[(edges instanceof Collection) ? Math.max(((Collection<?>) edges).size(), 1) : 16];
+		int count = 0;
+		for (Edge<T> edge : edges) {
+			if (count == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+			buffer[count++] = LongIntHashMap.edge(indexOf(edge.getFrom()), indexOf(edge.getTo()));
+		}
+		count = GraphBuilder.sortUnique(buffer, count);
+		int added = 0;
+		int e = 0;
+		while (e < count) {
+			Vertex fromV = this.indexToVertex.get((int) (buffer[e] >>> 32));
+			Set<Vertex> existing = fromV.successors.isEmpty() ? null : new HashSet<Vertex>(fromV.successors);
+			for (; e < count && this.indexToVertex.get((int) (buffer[e] >>> 32)) == fromV; e++) {
+				Vertex toV = this.indexToVertex.get((int) buffer[e]);
+				if (existing == null || !existing.contains(toV)) {
+					link(fromV, toV);
+					if (this.weakComponents != null) {
+						this.weakComponents.union(fromV.index, toV.index);
+					}
+					added++;
+				}
+			}
+		}
+		if (added > 0) {
+			this.components = null;
+			this.reachability = null;
+			this.modCount++;
+		}
+		return added;
+	}
+
 	@Override
 	public boolean hasVertex(T key) {
 		return this.keyToVertex.containsKey(key);
@@ -93,17 +258,61 @@ public class AdjacencyListGraph<T> extends Graph<T> {
 		}
 		Vertex fromV = this.keyToVertex.get(from);
 		Vertex toV = this.keyToVertex.get(to);
-		List<Vertex> succ = fromV.successors;
-		List<Vertex> pred = toV.predecessors;
-		if (succ.contains(toV) && pred.contains(fromV)) {
-			succ.remove(toV);
-			pred.remove(fromV);
+		// searches whichever side of the edge has the shorter list
+		int i;
+		if (fromV.successors.size() <= toV.predecessors.size()) {
+			i = fromV.successors.indexOf(toV);
+		} else {
+			int j = toV.predecessors.indexOf(fromV);
+			i = (j < 0) ? -1 : toV.predecessorSlots.get(j);
+		}
+		if (i >= 0) {
+			unlink(fromV, i);
+			this.components = null;
+			this.reachability = null;
+			this.weakComponents = null;
+			this.modCount++;
 			return true;
 		}
 
 		return false;
 	}
 
+	private void link(Vertex from, Vertex to) {
+		from.successorSlots.add(to.predecessors.size());
+		to.predecessorSlots.add(from.successors.size());
+		from.successors.add(to);
+		to.predecessors.add(from);
+	}
+
+	// removes the edge to from's i-th successor from both lists, in O(1):
+	// each gap is filled with the last entry of its list, whose partner
+	// slot is pointed at the new place
+	private void unlink(Vertex from, int i) {
+		Vertex to = from.successors.get(i);
+		int j = from.successorSlots.get(i);
+		int last = from.successors.size() - 1;
+		if (i < last) {
+			Vertex moved = from.successors.get(last);
+			int slot = from.successorSlots.get(last);
+			from.successors.set(i, moved);
+			from.successorSlots.set(i, slot);
+			moved.predecessorSlots.set(slot, i);
+		}
+		from.successors.remove(last);
+		from.successorSlots.removeAt(last);
+		last = to.predecessors.size() - 1;
+		if (j < last) {
+			Vertex moved = to.predecessors.get(last);
+			int slot = to.predecessorSlots.get(last);
+			to.predecessors.set(j, moved);
+			to.predecessorSlots.set(j, slot);
+			moved.successorSlots.set(slot, j);
+		}
+		to.predecessors.remove(last);
+		to.predecessorSlots.removeAt(last);
+	}
+
 	@Override
 	public int outDegree(T key) {
 		if (!this.keyToVertex.containsKey(key)) {
@@ -153,91 +362,109 @@ public class AdjacencyListGraph<T> extends Graph<T> {
 
 	@Override
 	public Iterator<T> successorIterator(T key) {
-		return successorSet(key).iterator();
+		if (!this.keyToVertex.containsKey(key)) {
+			throw new NoSuchElementException();
+		}
+		return new NeighborIterator(this.keyToVertex.get(key).successors);
 	}
 
 	@Override
 	public Iterator<T> predecessorIterator(T key) {
-		return predecessorSet(key).iterator();
+		if (!this.keyToVertex.containsKey(key)) {
+			throw new NoSuchElementException();
+		}
+		return new NeighborIterator(this.keyToVertex.get(key).predecessors);
 	}
 
 	// Milestone 2
 	@Override
 	public Set<T> stronglyConnectedComponent(T key) {
-		if (!this.keySet().contains(key)) {
-			throw new NoSuchElementException();
+		return components().component(key);
+	}
+
+	public List<Set<T>> stronglyConnectedComponents() {
+		return components().components();
+	}
+
+	private StronglyConnectedComponents<T> components() {
+		if (this.components == null) {
+			this.components = new StronglyConnectedComponents<T>(this);
 		}
-		Set<T> succ = successorSet(key);
-		Set<T> pred = predecessorSet(key);
-		pred.add(key);
-		Set<T> scc = new HashSet<>();
-		scc.add(key);
-		while (true) {
-			Set<T> newSucc = new HashSet<>();
-			for (T sKeys : succ) {
-				if (scc.contains(sKeys)) {
-					// do nothing
-				} else {
-					if (pred.contains(sKeys)) {
-						scc.add(sKeys);
-						pred.addAll(predecessorSet(sKeys));
-						newSucc.addAll(successorSet(sKeys));
-					} else {
-						newSucc.addAll(successorSet(sKeys));
-						newSucc.add(sKeys);
-					}
-					//newSucc.addAll(successorSet(sKeys));
-				}
-			}
-			if (newSucc.size() == succ.size()) {
-				break;
-			}
-			succ = newSucc;
+		return this.components;
+	}
+
+	// sorts a snapshot of the graph; later edits are not reflected
+	public TopologicalSort<T> topologicalSort() {
+		return new TopologicalSort<T>(this);
+	}
+
+	// builds the index on first use; addEdge keeps it current and any other
+	// change drops it until the next query
+	public boolean canReach(T from, T to) {
+		if (this.reachability == null) {
+			this.reachability = new ReachabilityIndex<T>(this, components());
+		}
+		return this.reachability.canReach(from, to);
+	}
+
+	// built on first use, then kept current by addEdge, addEdges and
+	// addVertex; removals drop it until the next query
+	public boolean weaklyConnected(T a, T b) {
+		return weakComponents().connected(a, b);
+	}
+
+	public List<Set<T>> weaklyConnectedComponents() {
+		return weakComponents().components();
+	}
+
+	private WeaklyConnectedComponents<T> weakComponents() {
+		if (this.weakComponents == null) {
+			this.weakComponents = new WeaklyConnectedComponents<T>(this);
 		}
-		return scc;
+		return this.weakComponents;
 	}
 
 	// Milestone 2
 	@Override
 	public List<T> shortestPath(T startLabel, T endLabel) {
-		if (!this.keyToVertex.containsKey(startLabel) || !this.keyToVertex.containsKey(endLabel)) {
-			throw new NoSuchElementException();
+		int start = indexOf(startLabel);
+		int end = indexOf(endLabel);
+		if (this.search == null) {
+			this.search = new BreadthFirstSearch<T>(this);
 		}
-		
-		Set<T> visited = new HashSet<>();
-		LinkedList<ArrayList<T>> allPossPaths = new LinkedList<>();
-		ArrayList<T> currentPath = new ArrayList<T>();
-
-		currentPath.add(startLabel);
+		return this.search.shortestPath(start, end);
+	}
 
-		while (true) {
-			int lastIndex = currentPath.size() - 1;
-			if (currentPath.get(lastIndex).equals(endLabel)) {
-				return currentPath;
-			}
+	/**
+	 * Walks a neighbor list in place without copying it. The list is in
+	 * insertion order until a removal moves its last entry into the gap.
+	 * Fails fast if the graph changes while iterating.
+	 */
+	private class NeighborIterator implements Iterator<T> {
+		private List<Vertex> neighbors;
+		private int index;
+		private int expectedModCount;
 
-			visited.add(currentPath.get(lastIndex));
-			for (T key : successorSet(currentPath.get(lastIndex))) {
-				if (!visited.contains(key)) {
-					ArrayList<T> temp = (ArrayList<T>) currentPath.clone();
-					temp.add(key);
-					if(visited.contains(startLabel) && visited.contains(endLabel)) {
-						return temp;
-					}
-					allPossPaths.add(temp);
-				}
-			}
-			if (allPossPaths.isEmpty()) {
-				return null;
-			}
+		NeighborIterator(List<Vertex> neighbors) {
+			this.neighbors = neighbors;
+			this.index = 0;
+			this.expectedModCount = modCount;
+		}
 
-			currentPath = allPossPaths.remove();
-			
+		@Override
+		public boolean hasNext() {
+			return this.index < this.neighbors.size();
+		}
 
-			if (visited.size() == size()) {
-				break;
+		@Override
+		public T next() {
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
 			}
+			return this.neighbors.get(this.index++).key;
 		}
-		return allPossPaths.get(0);
 	}
 }
@@ -1,7 +1,9 @@
 package graphs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -9,17 +11,42 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
-
-public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
+import java.util.function.IntConsumer;
+
+/**
+ * Adjacency matrix packed one bit per possible edge. Row r of matrix holds
+ * the successors of r in 64-bit words and row c of transpose holds the
+ * predecessors of c, so both directions are scanned a word at a time.
+ *
+ * Vertices can be added and removed. Capacity doubles when every slot is
+ * taken, and the slots of removed vertices go on a free list to be reused,
+ * so indexToKey holds null for slots that are not in use.
+ */
+public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T>, IndexedGraph<T> {
 	Map<T, Integer> keyToIndex;
 	List<T> indexToKey;
-	int[][] matrix;
+	long[][] matrix;
+	long[][] transpose;
+	int[] outDegrees;
+	int[] inDegrees;
+	int edgeCount;
+	IntArrayList freeSlots;
+	StronglyConnectedComponents<T> components;
+	ReachabilityIndex<T> reachability;
+	WeaklyConnectedComponents<T> weakComponents;
+	BreadthFirstSearch<T> search;
 
 	AdjacencyMatrixGraph(Set<T> keys) {
 		int size = keys.size();
+		int words = (size + 63) >>> 6;
 		this.keyToIndex = new HashMap<T, Integer>();
 		this.indexToKey = new ArrayList<T>();
-		this.matrix = new int[size][size];
+		this.matrix = new long[size][words];
+		this.transpose = new long[size][words];
+		this.outDegrees = new int[size];
+		this.inDegrees = new int[size];
+		this.edgeCount = 0;
+		this.freeSlots = new IntArrayList();
 		int i = 0;
 		for(T key : keys) {
 			this.keyToIndex.put(key, i);
@@ -28,6 +55,138 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		}
 	}
 
+	public CsrGraph<T> freeze() {
+		return CsrGraph.of(this);
+	}
+
+	public boolean addVertex(T key) {
+		if (key == null) {
+			throw new IllegalArgumentException();
+		}
+		if (this.keyToIndex.containsKey(key)) {
+			return false;
+		}
+		if (this.freeSlots.isEmpty()) {
+			grow(Math.max(this.matrix.length * 2, 1));
+		}
+		int index = this.freeSlots.removeAt(this.freeSlots.size() - 1);
+		this.keyToIndex.put(key, index);
+		this.indexToKey.set(index, key);
+		this.components = null;
+		this.reachability = null;
+		if (this.weakComponents != null) {
+			this.weakComponents.grow(this.matrix.length);
+		}
+		return true;
+	}
+
+	// O(degree + capacity / 64): only the removed row and column are touched
+	public boolean removeVertex(T key) {
+		Integer boxed = this.keyToIndex.remove(key);
+		if (boxed == null) {
+			return false;
+		}
+		int index = boxed;
+		long[] row = this.matrix[index];
+		long[] col = this.transpose[index];
+		if (isSet(row, index)) {
+			row[index >>> 6] &= ~(1L << index);
+			col[index >>> 6] &= ~(1L << index);
+			this.edgeCount--;
+		}
+		forEachBit(row, s -> {
+			this.transpose[s][index >>> 6] &= ~(1L << index);
+			this.inDegrees[s]--;
+			this.edgeCount--;
+		});
+		forEachBit(col, p -> {
+			this.matrix[p][index >>> 6] &= ~(1L << index);
+			this.outDegrees[p]--;
+			this.edgeCount--;
+		});
+		Arrays.fill(row, 0);
+		Arrays.fill(col, 0);
+		this.outDegrees[index] = 0;
+		this.inDegrees[index] = 0;
+		this.indexToKey.set(index, null);
+		this.freeSlots.add(index);
+		this.components = null;
+		this.reachability = null;
+		this.weakComponents = null;
+		return true;
+	}
+
+	private void grow(int capacity) {
+		int old = this.matrix.length;
+		int words = (capacity + 63) >>> 6;
+		this.matrix = Arrays.copyOf(this.matrix, capacity);
+		this.transpose = Arrays.copyOf(this.transpose, capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.matrix[i] = (i < old) ? Arrays.copyOf(this.matrix[i], words) : new long[words];
+			this.transpose[i] = (i < old) ? Arrays.copyOf(this.transpose[i], words) : new long[words];
+		}
+		this.outDegrees = Arrays.copyOf(this.outDegrees, capacity);
+		this.inDegrees = Arrays.copyOf(this.inDegrees, capacity);
+		// pushed in reverse so the lowest new slot is handed out first
+		for (int i = capacity - 1; i >= old; i--) {
+			this.indexToKey.add(null);
+			this.freeSlots.add(i);
+		}
+	}
+
+	@Override
+	public int indexCapacity() {
+		return this.matrix.length;
+	}
+
+	@Override
+	public int indexOf(T key) {
+		Integer index = this.keyToIndex.get(key);
+		if (index == null) {
+			throw new NoSuchElementException();
+		}
+		return index;
+	}
+
+	@Override
+	public T keyAt(int index) {
+		return this.indexToKey.get(index);
+	}
+
+	@Override
+	public int outDegreeAt(int index) {
+		return this.outDegrees[index];
+	}
+
+	@Override
+	public int inDegreeAt(int index) {
+		return this.inDegrees[index];
+	}
+
+	@Override
+	public void forEachSuccessor(int index, IntConsumer action) {
+		forEachBit(this.matrix[index], action);
+	}
+
+	@Override
+	public void forEachPredecessor(int index, IntConsumer action) {
+		forEachBit(this.transpose[index], action);
+	}
+
+	private static void forEachBit(long[] words, IntConsumer action) {
+		for (int w = 0; w < words.length; w++) {
+			long word = words[w];
+			while (word != 0) {
+				action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	static boolean isSet(long[] words, int bit) {
+		return (words[bit >>> 6] & (1L << bit)) != 0;
+	}
+
 	@Override
 	public int size() {
 		return this.keyToIndex.size();
@@ -35,15 +194,7 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 
 	@Override
 	public int numEdges() {
-		int count = 0;
-		for (int r = 0; r < this.matrix.length; r++) {
-			for (int c = 0; c < this.matrix.length; c++) {
-				if (this.matrix[r][c] == 1) {
-					count++;
-				}
-			}
-		}
-		return count;
+		return this.edgeCount;
 	}
 
 	@Override
@@ -54,7 +205,18 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		int row = this.keyToIndex.get(from);
 		int col = this.keyToIndex.get(to);
 		if (!hasEdge(from, to)) {
-			this.matrix[row][col] = 1;
+			this.matrix[row][col >>> 6] |= 1L << col;
+			this.transpose[col][row >>> 6] |= 1L << row;
+			this.outDegrees[row]++;
+			this.inDegrees[col]++;
+			this.edgeCount++;
+			this.components = null;
+			if (this.reachability != null && !this.reachability.addEdge(from, to)) {
+				this.reachability = null;
+			}
+			if (this.weakComponents != null) {
+				this.weakComponents.union(row, col);
+			}
 			return true;
 		}
 		return false;
@@ -72,10 +234,7 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		}
 		int row = this.keyToIndex.get(from);
 		int col = this.keyToIndex.get(to);
-		if(matrix[row][col] == 0) {
-			return false;
-		}
-		return true;
+		return isSet(this.matrix[row], col);
 	}
 
 	@Override
@@ -86,7 +245,14 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		int row = this.keyToIndex.get(from);
 		int col = this.keyToIndex.get(to);
 		if (hasEdge(from, to)) {
-			this.matrix[row][col] = 0;
+			this.matrix[row][col >>> 6] &= ~(1L << col);
+			this.transpose[col][row >>> 6] &= ~(1L << row);
+			this.outDegrees[row]--;
+			this.inDegrees[col]--;
+			this.edgeCount--;
+			this.components = null;
+			this.reachability = null;
+			this.weakComponents = null;
 			return true;
 		}
 		return false;
@@ -97,7 +263,7 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		if (!this.keyToIndex.containsKey(key)) {
 			throw new NoSuchElementException();
 		}
-		return successorSet(key).size();
+		return this.outDegrees[this.keyToIndex.get(key)];
 	}
 
 	@Override
@@ -105,7 +271,7 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		if (!this.keyToIndex.containsKey(key)) {
 			throw new NoSuchElementException();
 		}
-		return predecessorSet(key).size();
+		return this.inDegrees[this.keyToIndex.get(key)];
 	}
 
 	@Override
@@ -118,35 +284,32 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 		if (!this.keyToIndex.containsKey(key)) {
 			throw new NoSuchElementException();
 		}
-		Set<T> succSet = new HashSet<T>();
-		int row = this.keyToIndex.get(key);
-		for (int c = 0; c < this.matrix.length; c++) {
-			if (this.matrix[row][c] == 1) {
-				succSet.add(this.indexToKey.get(c));
-			}
-		}
-
-		return succSet;
+		return toKeySet(this.matrix[this.keyToIndex.get(key)]);
 	}
 
 	@Override
 	public Set<T> predecessorSet(T key) {
-		if (!this.indexToKey.contains(key)) {
+		if (!this.keyToIndex.containsKey(key)) {
 			throw new NoSuchElementException();
 		}
-		Set<T> predSet = new HashSet<T>();
-		int col = this.keyToIndex.get(key);
-		for (int r = 0; r < this.matrix.length; r++) {
-			if (this.matrix[r][col] == 1) {
-				predSet.add(this.indexToKey.get(r));
+		return toKeySet(this.transpose[this.keyToIndex.get(key)]);
+	}
+
+	private Set<T> toKeySet(long[] words) {
+		Set<T> set = new HashSet<T>();
+		for (int w = 0; w < words.length; w++) {
+			long word = words[w];
+			while (word != 0) {
+				set.add(this.indexToKey.get((w << 6) + Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
 			}
 		}
-		return predSet;
+		return set;
 	}
 
 	@Override
 	public Iterator<T> successorIterator(T key) {
-		if (!this.indexToKey.contains(key)) {
+		if (!this.keyToIndex.containsKey(key)) {
 			throw new NoSuchElementException();
 		}
 		return new SuccessorIterator(this.matrix, this.keyToIndex.get(key));
@@ -154,167 +317,123 @@ public class AdjacencyMatrixGraph<T> extends Graph<T> implements Iterable<T> {
 
 	@Override
 	public Iterator<T> predecessorIterator(T key) {
-		if (!this.indexToKey.contains(key)) {
+		if (!this.keyToIndex.containsKey(key)) {
 			throw new NoSuchElementException();
 		}
-		return new PredecessorIterator(this.matrix, this.keyToIndex.get(key));
+		return new PredecessorIterator(this.transpose, this.keyToIndex.get(key));
 	}
 
 	// milestone 2
 	@Override
 	public Set<T> stronglyConnectedComponent(T key) {
-		if (!this.indexToKey.contains(key)) {
-			throw new NoSuchElementException();
-		}
+		return components().component(key);
+	}
 
-		Set<T> succ = successorSet(key);
-		Set<T> pred = predecessorSet(key);
-		pred.add(key);
-		Set<T> scc = new HashSet<>();
-		scc.add(key);
-		while (true) {
-			Set<T> newSucc = new HashSet<>();
-			for (T sKeys : succ) {
-				if (scc.contains(sKeys)) {
-					// do nothing
-				}
-				else if (pred.contains(sKeys)) {
-					scc.add(sKeys);
-					pred.addAll(predecessorSet(sKeys));
-					newSucc.addAll(successorSet(sKeys));
-				} else {
-					newSucc.addAll(successorSet(sKeys));
-					newSucc.add(sKeys);
-				}
-			}
-			if (newSucc.size() == succ.size()) {
-				break;
-			}
-			succ = newSucc;
-		}
-		return scc;
+	public List<Set<T>> stronglyConnectedComponents() {
+		return components().components();
 	}
 
-	// milestone 2
-	@Override
-	public List<T> shortestPath(T startLabel, T endLabel) {
-		if (!this.keyToIndex.containsKey(startLabel) || !this.keyToIndex.containsKey(endLabel)) {
-			throw new NoSuchElementException();
+	private StronglyConnectedComponents<T> components() {
+		if (this.components == null) {
+			this.components = new StronglyConnectedComponents<T>(this);
 		}
+		return this.components;
+	}
 
-		ArrayList<T> visited = new ArrayList<T>();
-		ArrayList<ArrayList<T>> allPossPaths = new ArrayList<>();
-		ArrayList<T> currentPath = new ArrayList<T>();
-
-		visited.add(startLabel);
-		currentPath.add(startLabel);
-		while (true) {
-			for (T key : successorSet(visited.get(visited.size() - 1))) {
-				if (!visited.contains(key)) {
-					ArrayList<T> temp = new ArrayList<T>();
-					temp = (ArrayList<T>) currentPath.clone();
-					temp.add(key);
-					allPossPaths.add(temp);
-				}
-			}
-
-			if(allPossPaths.isEmpty()) {
-				return null;
-			}
-			currentPath = allPossPaths.remove(0);
-			if(currentPath.contains(startLabel) && currentPath.contains(endLabel)) {
-				return currentPath;
-			}
-			visited.add(currentPath.get(currentPath.size() - 1));
+	// sorts a snapshot of the graph; later edits are not reflected
+	public TopologicalSort<T> topologicalSort() {
+		return new TopologicalSort<T>(this);
+	}
 
-			if (visited.size() == size()) {
-				if(!allPossPaths.get(0).contains(endLabel)) {
-					return null;
-				}
-				break;
-			}
+	// builds the index on first use; addEdge keeps it current and any other
+	// change drops it until the next query
+	public boolean canReach(T from, T to) {
+		if (this.reachability == null) {
+			this.reachability = new ReachabilityIndex<T>(this, components());
 		}
-
-		return allPossPaths.get(0);
+		return this.reachability.canReach(from, to);
 	}
 
-	public class SuccessorIterator implements Iterator<T> {
-		private int[][] matrix;
-		private int indexOfKey;
-		private int size;
-		private int index;
+	// built on first use, then kept current by addEdge and addVertex;
+	// removals drop it until the next query
+	public boolean weaklyConnected(T a, T b) {
+		return weakComponents().connected(a, b);
+	}
 
-		public SuccessorIterator(int[][] matrix, int indexOfKey) {
-			this.matrix = matrix;
-			this.indexOfKey = indexOfKey;
-			this.size = this.matrix.length;
-			this.index = 0;
-		}
+	public List<Set<T>> weaklyConnectedComponents() {
+		return weakComponents().components();
+	}
 
-		@Override
-		public boolean hasNext() {
-			for (int i = this.index; i < this.size; i++) {
-				if (this.matrix[indexOfKey][i] == 1) {
-					this.index = i;
-					return true;
-				}
-			}
-			return false;
+	private WeaklyConnectedComponents<T> weakComponents() {
+		if (this.weakComponents == null) {
+			this.weakComponents = new WeaklyConnectedComponents<T>(this);
 		}
+		return this.weakComponents;
+	}
 
-		@Override
-		public T next() {
-			if (!hasNext()) {
-				return null;
-			} else {
-				T next = indexToKey.get(this.index);
-				this.index += 1;
-				return next;
-			}
+	// milestone 2
+	@Override
+	public List<T> shortestPath(T startLabel, T endLabel) {
+		int start = indexOf(startLabel);
+		int end = indexOf(endLabel);
+		if (this.search == null) {
+			this.search = new BreadthFirstSearch<T>(this);
 		}
-
+		return this.search.shortestPath(start, end);
 	}
 
-	public class PredecessorIterator implements Iterator<T> {
-		private int[][] matrix;
-		private int indexOfKey;
-		private int size;
-		private int index;
-
-		public PredecessorIterator(int[][] matrix, int indexOfKey) {
-			this.matrix = matrix;
-			this.indexOfKey = indexOfKey;
-			this.size = this.matrix.length;
-			this.index = 0;
+	/**
+	 * Walks the set bits of one packed row. The word being scanned is cached
+	 * and empty words are skipped whole, so a full pass costs O(degree + n/64).
+	 */
+	class BitRowIterator implements Iterator<T> {
+		private long[] words;
+		private int wordIndex;
+		private long word;
+
+		BitRowIterator(long[] words) {
+			this.words = words;
+			this.wordIndex = 0;
+			this.word = (words.length > 0) ? words[0] : 0;
 		}
 
 		@Override
 		public boolean hasNext() {
-			for (int i = this.index; i < this.size; i++) {
-				if (this.matrix[i][indexOfKey] == 1) {
-					this.index = i;
-					return true;
+			while (this.word == 0) {
+				if (this.wordIndex + 1 >= this.words.length) {
+					return false;
 				}
+				this.word = this.words[++this.wordIndex];
 			}
-			return false;
+			return true;
 		}
 
 		@Override
 		public T next() {
 			if (!hasNext()) {
-				return null;
-			} else {
-				T next = indexToKey.get(this.index);
-				this.index += 1;
-				return next;
+				throw new NoSuchElementException();
 			}
+			int bit = Long.numberOfTrailingZeros(this.word);
+			this.word &= this.word - 1;
+			return indexToKey.get((this.wordIndex << 6) + bit);
 		}
+	}
 
+	public class SuccessorIterator extends BitRowIterator {
+		public SuccessorIterator(long[][] matrix, int indexOfKey) {
+			super(matrix[indexOfKey]);
+		}
+	}
+
+	public class PredecessorIterator extends BitRowIterator {
+		public PredecessorIterator(long[][] transpose, int indexOfKey) {
+			super(transpose[indexOfKey]);
+		}
 	}
 
 	@Override
 	public Iterator<T> iterator() {
-		return null;
+		return Collections.unmodifiableSet(this.keyToIndex.keySet()).iterator();
 	}
 
 }
@@ -1,4 +1,6 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -31,7 +33,10 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 	}
 	
 	public int size() {
-		return toArrayList().size();
+		if(isEmpty()) {
+			return 0;
+		}
+		return root.size;
 	}
 	
 	public String toString() {
@@ -39,21 +44,25 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 	}
 	
 	public ArrayList<Object> toArrayList() {
-		if(isEmpty()) {
-			return new ArrayList<Object>();
-		}
-		return root.toArrayList();	
+		return new ArrayList<Object>(Arrays.asList(toArray()));
 	}
 	
+	// one in order pass over the tree into an array of the right size
 	public Object[] toArray() {
-		int size = size();
-		Object[] array= new Object[size];
-		for(int i = 0; i < size; i++) {
-			Object element = toArrayList().get(i);
-			array[i] = element;
+		Object[] array = new Object[size()];
+		ArrayDeque<BinaryNode> stack = new ArrayDeque<BinaryNode>();
+		BinaryNode node = root;
+		int i = 0;
+		while(node != null || !stack.isEmpty()) {
+			while(node != null) {
+				stack.push(node);
+				node = node.leftChild;
+			}
+			node = stack.pop();
+			array[i++] = node.element;
+			node = node.rightChild;
 		}
 		return array;
-		
 	}
 	
 	public Iterator<T> preOrderIterator() {
@@ -94,11 +103,14 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 		private T element;
 		private BinaryNode leftChild;
 		private BinaryNode rightChild;
+		// number of nodes in this subtree, kept up to date by insert and remove
+		private int size;
 		
 		public BinaryNode(T e){
 			this.element = e;
 			this.leftChild = null;
 			this.rightChild = null;		
+			this.size = 1;
 		}
 		
 		public BinaryNode remove(T e, MyBoolean myBool) {
@@ -107,6 +119,9 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 			if(compare > 0) {   // goes left
 				if(leftChild != null) {
 					leftChild = leftChild.remove(e, 												myBool);
+					if(myBool.getBool()) {
+						size--;
+					}
 					return this;
 				}	
 			}
@@ -115,6 +130,9 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 				if(rightChild != null) {
 					
 				rightChild = rightChild.remove(e, myBool);
+				if(myBool.getBool()) {
+					size--;
+				}
 				return this;
 				}
 			}
@@ -133,6 +151,7 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 				if(rightChild != null && leftChild != null) {
 					element =  leftChild.getMax();
 					leftChild = leftChild.remove(element, myBool);
+					size--;
 				}
 				return this;
 			}
@@ -156,16 +175,26 @@ public class BinarySearchTree <T extends Comparable <? super T>> implements Iter
 			if(element.compareTo(e) < 0) {	
 				if(rightChild == null) {
 					rightChild = new BinaryNode(e);
+					size++;
+					return true;
+				}
+				if(rightChild.insert(e)) {
+					size++;
 					return true;
 				}
-				return rightChild.insert(e);	
+				return false;
 			}
 			if(element.compareTo(e) > 0) {
 				if(leftChild == null) {
 					leftChild = new BinaryNode(e);
+					size++;
+					return true;
+				}
+				if(leftChild.insert(e)) {
+					size++;
 					return true;
 				}
-				return leftChild.insert(e);
+				return false;
 			}
 			return false;
 			
@@ -1,25 +1,82 @@
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Set;
 
 
 public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 	private int trueMods;
 	private BinaryNode root;
+	private final boolean balanced;
+	// set when nodes are linked by hand, so the cached heights and sizes
+	// can't be trusted
+	private boolean dirty;
+	// descent path for remove in a deep tree, kept between calls so it is
+	// allocated once; a plain array is cheaper per level than a deque
+	private BinaryNode[] path;
+	private int depth;
+	// remove recurses in trees less tall than this, which fits in any
+	// thread's stack
+	private static final int RECURSION_LIMIT = 256;
 
 	// Most of you will prefer to use NULL NODES once you see how to use them.
 	private final BinaryNode NULL_NODE = new BinaryNode();
 
 	public BinarySearchTree() {
+		this(false);
+	}
+
+	// A balanced tree rotates itself back into AVL shape after every insert
+	// and remove, so sorted input still gives O(log n) operations.
+	// BinaryNode is an inner class of a generic class, so its array can
+	// only be created raw
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public BinarySearchTree(boolean balanced) {
 		root = NULL_NODE; // NULL_NODE;
 		this.trueMods = 0;
+		this.balanced = balanced;
+		this.dirty = false;
+		this.path = new BinarySearchTree.BinaryNode[16];
+		this.depth = 0;
+	}
+
+	private void push(BinaryNode node) {
+		if(depth == path.length) {
+			path = Arrays.copyOf(path, depth * 2);
+		}
+		path[depth++] = node;
+	}
+
+	private BinaryNode pop() {
+		BinaryNode node = path[--depth];
+		path[depth] = null;
+		return node;
+	}
+
+	//drops the path of a remove that found nothing, so the array does not
+	//keep those nodes reachable
+	private void clearPath() {
+		while(depth > 0) {
+			pop();
+		}
 	}
 
 	// For manual tests only
 	void setRoot(BinaryNode n) {
 		this.root = n;
+		this.dirty = true;
+	}
+
+	//recomputes the cached heights and sizes if nodes were linked by hand
+	private void refresh() {
+		if(dirty) {
+			root.refresh();
+			dirty = false;
+		}
 	}
 	
 	public boolean isEmpty() {
@@ -27,10 +84,12 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 	}
 	
 	public int size() {
+		refresh();
 		return root.size();
 	}
 	
 	public int height() {
+		refresh();
 		return root.height();
 	}
 	
@@ -39,7 +98,7 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 	}
 	
 	public ArrayList<T> toArrayList(){
-		ArrayList<T> list = new ArrayList<T>();
+		ArrayList<T> list = new ArrayList<T>(size());
 		this.root.toArrayList(list);
 		return list;
 	}
@@ -48,22 +107,44 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 		return toArrayList().toString();
 	}
 	
+	//one in order pass into an array of the right size
 	public Object[] toArray() {
-		return toArrayList().toArray();
+		Object[] array = new Object[size()];
+		ArrayDeque<BinaryNode> nodes = new ArrayDeque<BinaryNode>();
+		BinaryNode node = this.root;
+		int i = 0;
+		while(node != NULL_NODE || !nodes.isEmpty()) {
+			while(node != NULL_NODE) {
+				nodes.push(node);
+				node = node.left;
+			}
+			node = nodes.pop();
+			array[i++] = node.data;
+			node = node.right;
+		}
+		return array;
 	}
 	
 	public boolean insert(T data) {
+		if(data == null) {
+			throw new IllegalArgumentException();
+		}
+		refresh();
+		trueMods++;
 		if(isEmpty()) {
 			root = new BinaryNode(data);
+			return true;
 		}
-		trueMods++;
-		return root.insert(data);	
+		boolean inserted = root.insert(data);
+		root = root.rebalance();
+		return inserted;
 	}
 	
 	public boolean remove(T data) {
 		if(isEmpty()) {
 			return false;
 		}
+		refresh();
 		
 		MyBoolean bool = new MyBoolean();
 		root = root.remove(data, bool);
@@ -78,7 +159,167 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 		}
 		return root.contains(data);
 	}
-	
+
+	//the k-th smallest element, counting from 0. walks one path down using
+	//the subtree sizes, so it is O(log n) in a balanced tree
+	public T select(int k) {
+		refresh();
+		if(k < 0 || k >= root.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		BinaryNode node = this.root;
+		while(true) {
+			int leftSize = node.left.size;
+			if(k < leftSize) {
+				node = node.left;
+			}else if(k > leftSize) {
+				k -= leftSize + 1;
+				node = node.right;
+			}else {
+				return node.data;
+			}
+		}
+	}
+
+	//how many elements are smaller than data, whether or not it is in the tree
+	public int rank(T data) {
+		return countBelow(data, false);
+	}
+
+	//how many elements lie between lo and hi, both included
+	public int countRange(T lo, T hi) {
+		if(lo == null || hi == null) {
+			throw new IllegalArgumentException();
+		}
+		if(lo.compareTo(hi) > 0) {
+			return 0;
+		}
+		return countBelow(hi, true) - countBelow(lo, false);
+	}
+
+	//counts elements less than data, or less than or equal to it
+	private int countBelow(T data, boolean inclusive) {
+		if(data == null) {
+			throw new IllegalArgumentException();
+		}
+		refresh();
+		int count = 0;
+		BinaryNode node = this.root;
+		while(node != NULL_NODE) {
+			int compare = node.data.compareTo(data);
+			if(compare < 0 || (compare == 0 && inclusive)) {
+				count += node.left.size + 1;
+				node = node.right;
+			}else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+
+	public T first() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		BinaryNode node = this.root;
+		while(node.left != NULL_NODE) {
+			node = node.left;
+		}
+		return node.data;
+	}
+
+	public T last() {
+		if(isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return this.root.getMaxFromRight();
+	}
+
+	//the largest element less than or equal to data, or null if there is none
+	public T floor(T data) {
+		return below(data, true);
+	}
+
+	//the largest element strictly less than data, or null
+	public T lower(T data) {
+		return below(data, false);
+	}
+
+	//the smallest element greater than or equal to data, or null
+	public T ceiling(T data) {
+		return above(data, true);
+	}
+
+	//the smallest element strictly greater than data, or null
+	public T higher(T data) {
+		return above(data, false);
+	}
+
+	private T below(T data, boolean inclusive) {
+		if(data == null) {
+			throw new IllegalArgumentException();
+		}
+		T best = null;
+		BinaryNode node = this.root;
+		while(node != NULL_NODE) {
+			int compare = node.data.compareTo(data);
+			if(compare < 0 || (compare == 0 && inclusive)) {
+				best = node.data;
+				node = node.right;
+			}else {
+				node = node.left;
+			}
+		}
+		return best;
+	}
+
+	private T above(T data, boolean inclusive) {
+		if(data == null) {
+			throw new IllegalArgumentException();
+		}
+		T best = null;
+		BinaryNode node = this.root;
+		while(node != NULL_NODE) {
+			int compare = node.data.compareTo(data);
+			if(compare > 0 || (compare == 0 && inclusive)) {
+				best = node.data;
+				node = node.left;
+			}else {
+				node = node.right;
+			}
+		}
+		return best;
+	}
+
+	//live view of the elements from lo, included, up to hi, excluded.
+	//its iterator seeks to lo and stops at hi, so a scan costs
+	//O(log n + k) in a balanced tree
+	public Set<T> subSet(T lo, T hi) {
+		if(lo == null || hi == null) {
+			throw new IllegalArgumentException();
+		}
+		if(lo.compareTo(hi) > 0) {
+			throw new IllegalArgumentException();
+		}
+		return new SubSet(lo, hi);
+	}
+
+	//live view of the elements less than hi
+	public Set<T> headSet(T hi) {
+		if(hi == null) {
+			throw new IllegalArgumentException();
+		}
+		return new SubSet(null, hi);
+	}
+
+	//live view of the elements greater than or equal to lo
+	public Set<T> tailSet(T lo) {
+		if(lo == null) {
+			throw new IllegalArgumentException();
+		}
+		return new SubSet(lo, null);
+	}
+
 	@Override
 	public Iterator<T> iterator() {
 		return new InOrderIterator();
@@ -97,51 +338,107 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 		private T data;
 		private BinaryNode left;
 		private BinaryNode right;
+		private int height;
+		private int size;
 
 		//just to build the NULL_NODE
 		public BinaryNode() {
 			this.data = null;
 			this.left = null;
 			this.right = null;
+			this.height = -1;
+			this.size = 0;
 		}
 		
 		public BinaryNode remove(T data, MyBoolean bool) {
 			if(data == null) {
 				throw new IllegalArgumentException();
 			}
+			if(this.height < RECURSION_LIMIT) {
+				return removeRecursive(data, bool);
+			}
+			
+			BinaryNode parent = NULL_NODE;
+			BinaryNode node = this;
+			while(node != NULL_NODE) {
+				int compare = node.data.compareTo(data);
+				if(compare == 0) {
+					break;
+				}
+				push(node);
+				parent = node;
+				//data is greater, so goes to right sub tree
+				node = (compare < 0) ? node.right : node.left;
+			}
 			
+			//if data was not removed
+			if(node == NULL_NODE) {
+				clearPath();
+				bool.hasChanged();
+				return this;
+			}
+			
+			//removal procedure if node has two children: it takes the data of
+			//the largest node on its left, which is removed instead
+			if(node.left != NULL_NODE && node.right != NULL_NODE) {
+				BinaryNode target = node;
+				push(node);
+				parent = node;
+				node = node.left;
+				while(node.right != NULL_NODE) {
+					push(node);
+					parent = node;
+					node = node.right;
+				}
+				target.data = node.data;
+			}
+			
+			//node now has at most one child, which takes its place. retrace
+			//empties the path; it is already empty when this is the node
+			BinaryNode child = (node.left != NULL_NODE) ? node.left : node.right;
+			if(parent == NULL_NODE) {
+				return child;
+			}
+			if(parent.left == node) {
+				parent.left = child;
+			}else {
+				parent.right = child;
+			}
+			retrace();
+			return rebalance();
+		}
+
+		//recurses as deep as the tree is tall, so remove only calls it below
+		//RECURSION_LIMIT: always for a balanced tree, which is at most about
+		//1.44 log n tall, and for most trees built from shuffled keys.
+		//Recursing is faster than walking the path array: the return address
+		//remembers which child was taken, where retrace has to test for it
+		private BinaryNode removeRecursive(T data, MyBoolean bool) {
 			int compare = this.data.compareTo(data);
 			
 			if(compare < 0) {//data is greater, so goes to right sub tree
 				if(this.right != NULL_NODE) {
-					this.right = this.right.remove(data, bool);
-					return this;
+					this.right = this.right.removeRecursive(data, bool);
+					return rebalance();
 				}
 			}else if(compare > 0) {//data is less, so goes to left subtree
 				if(this.left != NULL_NODE) {
-					this.left = this.left.remove(data, bool);
-					return this;
+					this.left = this.left.removeRecursive(data, bool);
+					return rebalance();
 				}
-			}else if(compare == 0){//it is equal to what it is compared to
-				if(this.right == NULL_NODE && this.left == NULL_NODE){
-					return NULL_NODE;
-				}
-				
-				//removal procedure if node only has right child
+			}else {//it is equal to what it is compared to
+				//removal procedure if node has at most one child
 				if(this.left == NULL_NODE) {
 					return this.right;
 				}
-				//removal procedure if node only has left child
 				if(this.right == NULL_NODE) {
 					return this.left;
 				}
 				
 				//removal procedure if node has two children
-				if(this.right != NULL_NODE && this.left != NULL_NODE) {
-					this.data = this.left.getMaxFromRight();
-					this.left = this.left.remove(this.data, bool);
-				}
-				return this;
+				this.data = this.left.getMaxFromRight();
+				this.left = this.left.removeRecursive(this.data, bool);
+				return rebalance();
 			}
 			
 			//if data was not removed
@@ -151,28 +448,42 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 		
 		//
 		public T getMaxFromRight() {
-			if(this.right == NULL_NODE) {
-				return this.data;
+			BinaryNode node = this;
+			while(node.right != NULL_NODE) {
+				node = node.right;
 			}
-			return this.right.getMaxFromRight();
+			return node.data;
 		}
 
 		public boolean contains(T data) {
+			if(this.height < RECURSION_LIMIT) {
+				return containsRecursive(data);
+			}
+			BinaryNode node = this;
+			while(node != NULL_NODE) {
+				int compare = node.data.compareTo(data);
+				if(compare == 0) {
+					return true;
+				}
+				//data is greater, so goes to right sub tree
+				node = (compare < 0) ? node.right : node.left;
+			}
+			return false;
+		}
+
+		//recursive like removeRecursive, which measured faster than the loop
+		//above for trees shorter than RECURSION_LIMIT
+		private boolean containsRecursive(T data) {
 			if(this == NULL_NODE) {
 				return false;
 			}
-			
 			int compare = this.data.compareTo(data);
-			
-			if(compare < 0) {//goes to right
-				return this.right.contains(data);
-			}else if(compare > 0) {//goes left
-				return this.left.contains(data);
-			}else if(compare == 0){
-				return true;
-			}else {
-				return false;
+			if(compare < 0) {//data is greater, so goes to right sub tree
+				return this.right.containsRecursive(data);
+			}else if(compare > 0) {//data is less, so goes to left subtree
+				return this.left.containsRecursive(data);
 			}
+			return true;
 		}
 
 		public boolean insert(T data) {
@@ -180,70 +491,231 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 				throw new IllegalArgumentException();
 			}
 			
-			int compare = this.data.compareTo(data);
+			if(balanced) {
+				return insertBalanced(data);
+			}
 			
+			//sizes are counted on the way down. A child grows by at most one,
+			//so a node more than one taller than the child on the path keeps
+			//its height, and so does everything above it; only the heights
+			//from start down are fixed afterwards
+			BinaryNode start = this;
+			int startLevel = 0;
+			BinaryNode node = this;
+			int level = 0;
+			while(true) {
+				node.size++;
+				int compare = node.data.compareTo(data);
+				if(compare == 0) {
+					uncount(data, node);
+					return false;
+				}
+				//data is greater, so goes to right sub tree
+				BinaryNode next = (compare < 0) ? node.right : node.left;
+				if(next == NULL_NODE) {
+					if(compare < 0) {
+						node.right = new BinaryNode(data);
+					}else {
+						node.left = new BinaryNode(data);
+					}
+					break;
+				}
+				if(next.height + 1 < node.height) {
+					start = next;
+					startLevel = level + 1;
+				}
+				node = next;
+				level++;
+			}
+			//the new leaf is one level below node
+			for(node = start; node != NULL_NODE; startLevel++) {
+				node.height = Math.max(node.height, level + 1 - startLevel);
+				node = (node.data.compareTo(data) < 0) ? node.right : node.left;
+			}
+			return true;
+		}
+
+		//takes back the counts of an insert that found data already in the
+		//tree at found
+		private void uncount(T data, BinaryNode found) {
+			BinaryNode node = this;
+			while(true) {
+				node.size--;
+				if(node == found) {
+					return;
+				}
+				node = (node.data.compareTo(data) < 0) ? node.right : node.left;
+			}
+		}
+
+		//recursive like removeRecursive; a balanced tree is never as tall as
+		//RECURSION_LIMIT
+		private boolean insertBalanced(T data) {
+			int compare = this.data.compareTo(data);
 			if(compare < 0) {//goes to right
 				if(this.right == NULL_NODE) {
 					this.right = new BinaryNode(data);
 					return true;
 				}
-				return this.right.insert(data);
+				boolean inserted = this.right.insertBalanced(data);
+				this.right = this.right.rebalance();
+				return inserted;
 			}else if(compare > 0) {//goes left
 				if(this.left == NULL_NODE) {
 					this.left = new BinaryNode(data);
 					return true;
 				}
-				return this.left.insert(data);
+				boolean inserted = this.left.insertBalanced(data);
+				this.left = this.left.rebalance();
+				return inserted;
 			}else {
 				return false;
 			}
 		}
 
+		//walks back up a descent path that starts at this node, rebalancing
+		//each node below this one and linking the result into its parent.
+		//this node itself is left to the caller. The parent is only touched
+		//when a rotation moved a new node to the top, since which side to
+		//link is a branch the CPU can't predict
+		private void retrace() {
+			BinaryNode node = pop();
+			while(node != this) {
+				BinaryNode top = node.rebalance();
+				if(top != node) {
+					BinaryNode parent = path[depth - 1];
+					if(parent.left == node) {
+						parent.left = top;
+					}else {
+						parent.right = top;
+					}
+				}
+				node = pop();
+			}
+		}
+
 		public BinaryNode(T element) {
 			this.data = element;
 			this.left = NULL_NODE;
 			this.right = NULL_NODE;
+			this.height = 0;
+			this.size = 1;
 		}
 
 		public int height() {
-			int lHeight = -1;
-			int rHeight = -1;
+			return this.height;
+		}
+
+		private void update() {
+			this.height = 1 + Math.max(this.left.height, this.right.height);
+			this.size = 1 + this.left.size + this.right.size;
+		}
+
+		//recomputes the cached heights and sizes of the whole subtree
+		private void refresh() {
+			//children come after their parent in pre-order, so updating in
+			//reverse pre-order sees every child's height first
+			ArrayList<BinaryNode> order = new ArrayList<BinaryNode>();
+			ArrayDeque<BinaryNode> nodes = new ArrayDeque<BinaryNode>();
+			if(this != NULL_NODE) {
+				nodes.push(this);
+			}
+			while(!nodes.isEmpty()) {
+				BinaryNode node = nodes.pop();
+				order.add(node);
+				if(node.right != NULL_NODE) {
+					nodes.push(node.right);
+				}
+				if(node.left != NULL_NODE) {
+					nodes.push(node.left);
+				}
+			}
+			for(int i = order.size() - 1; i >= 0; i--) {
+				order.get(i).update();
+			}
+		}
+
+		//updates the cached height and size after a child changed and, in a
+		//balanced tree, rotates so the children's heights differ by at most
+		//one. returns the node now at the top of this subtree
+		private BinaryNode rebalance() {
 			if(this == NULL_NODE) {
-				return -1;
+				return this;
 			}
-			
-			lHeight = this.left.height() + 1;
-			rHeight = this.right.height() + 1;
-			
-			return (lHeight > rHeight) ? lHeight : rHeight;
+			update();
+			if(!balanced) {
+				return this;
+			}
+			int balance = this.left.height - this.right.height;
+			if(balance > 1) {
+				if(this.left.left.height < this.left.right.height) {
+					this.left = this.left.rotateLeft();
+				}
+				return rotateRight();
+			}
+			if(balance < -1) {
+				if(this.right.right.height < this.right.left.height) {
+					this.right = this.right.rotateRight();
+				}
+				return rotateLeft();
+			}
+			return this;
+		}
+
+		private BinaryNode rotateRight() {
+			BinaryNode pivot = this.left;
+			this.left = pivot.right;
+			pivot.right = this;
+			update();
+			pivot.update();
+			return pivot;
+		}
+
+		private BinaryNode rotateLeft() {
+			BinaryNode pivot = this.right;
+			this.right = pivot.left;
+			pivot.left = this;
+			update();
+			pivot.update();
+			return pivot;
 		}
 		
 		public void toArrayList(ArrayList<T> list) {
-			if(this == NULL_NODE) {
-				return;
+			ArrayDeque<BinaryNode> nodes = new ArrayDeque<BinaryNode>();
+			BinaryNode node = this;
+			while(node != NULL_NODE || !nodes.isEmpty()) {
+				while(node != NULL_NODE) {
+					nodes.push(node);
+					node = node.left;
+				}
+				node = nodes.pop();
+				list.add(node.data);
+				node = node.right;
 			}
-			this.left.toArrayList(list);
-			list.add(data);
-			this.right.toArrayList(list);
 		}
 		
 		public int size() {
-			if(this == NULL_NODE) {
-				return 0;
-			}
-			return 1 + left.size() + right.size();
+			return this.size;
 		}
 		
 		public boolean containsNonBST(T element) {
-			if(this == NULL_NODE) {
-				return false;
+			ArrayDeque<BinaryNode> nodes = new ArrayDeque<BinaryNode>();
+			if(this != NULL_NODE) {
+				nodes.push(this);
 			}
-			
-			if(this.data.equals(element)) {
-				return true;
+			while(!nodes.isEmpty()) {
+				BinaryNode node = nodes.pop();
+				if(node.data.equals(element)) {
+					return true;
+				}
+				if(node.left != NULL_NODE) {
+					nodes.push(node.left);
+				}
+				if(node.right != NULL_NODE) {
+					nodes.push(node.right);
+				}
 			}
-			
-			return left.containsNonBST(element) || right.containsNonBST(element);			
+			return false;
 		}
 
 		public T getData() {
@@ -261,10 +733,12 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 		// For manual testing
 		public void setLeft(BinaryNode left) {
 			this.left = left;
+			dirty = true;
 		}
 		
 		public void setRight(BinaryNode right) {
 			this.right = right;
+			dirty = true;
 		}	
 	}
 
@@ -300,9 +774,11 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 	 *
 	 */
 	public class InOrderIterator implements Iterator<T>{
-		private Stack<BinaryNode> nodes = new Stack<BinaryNode>();
+		private ArrayDeque<BinaryNode> nodes = new ArrayDeque<BinaryNode>();
 		private BinaryNode parent;
 		private int mods;
+		//the iteration stops before this element; null means no bound
+		private T hi;
 		
 		public InOrderIterator() {
 			this.parent = NULL_NODE;
@@ -312,9 +788,22 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 			}
 		}
 
+		//starts at the first element not below lo and stops before hi;
+		//either bound may be null
+		InOrderIterator(T lo, T hi) {
+			this.parent = NULL_NODE;
+			this.mods = trueMods;
+			this.hi = hi;
+			if(lo == null) {
+				getAllLeftChilds(root);
+			}else {
+				seek(lo, true);
+			}
+		}
+
 		@Override
 		public boolean hasNext() {
-			return !nodes.isEmpty();
+			return !nodes.isEmpty() && (hi == null || nodes.peek().data.compareTo(hi) < 0);
 		}
 
 		@Override
@@ -338,32 +827,58 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 				throw new IllegalStateException();
 			}
 			
-			BinarySearchTree.this.remove(parent.data);
+			T removed = parent.data;
+			BinarySearchTree.this.remove(removed);
 			parent = NULL_NODE;
 			mods++;
+			//rotations may have moved the nodes on the stack, so look up
+			//the successor of the removed element again
+			seek(removed, false);
+		}
+
+		//rebuilds the stack so the next element is the first one after
+		//data, or at data when inclusive. one path down, O(log n) when
+		//the tree is balanced
+		private void seek(T data, boolean inclusive) {
+			nodes.clear();
+			BinaryNode node = root;
+			while(node != NULL_NODE) {
+				int compare = node.data.compareTo(data);
+				if(compare > 0 || (compare == 0 && inclusive)) {
+					nodes.push(node);
+					node = node.left;
+				}else {
+					node = node.right;
+				}
+			}
 		}
 		
-		//pushes all the left children of a node onto the stack recursively
+		//pushes a node and all its left children onto the stack
 		public void getAllLeftChilds(BinaryNode node) {
-			nodes.push(node);
-			if(node.left != NULL_NODE) {
-				getAllLeftChilds(node.left);
+			while(node != NULL_NODE) {
+				nodes.push(node);
+				node = node.left;
 			}
 		}
 		
 	}
 	
 	/**
-	 * Iterates through the tree so that it is root, left, right
+	 * Iterates through the tree so that it is root, left, right. remove is
+	 * not supported on a balanced tree: its rotations move nodes that are
+	 * already on the stack, and no stack can say which elements are left
 	 *
 	 */
 	public class PreOrderIterator implements Iterator<T>{
-		private Stack<BinaryNode> nodes = new Stack<BinaryNode>();
+		private ArrayDeque<BinaryNode> nodes = new ArrayDeque<BinaryNode>();
 		private BinaryNode parent;
 		private int mods;
+		//popped again without pushing its children, which are on the stack
+		private BinaryNode revisit;
 
 		public PreOrderIterator() {
 			this.parent = NULL_NODE;
+			this.revisit = NULL_NODE;
 			this.mods = trueMods;
 			if(root != NULL_NODE) {
 				nodes.push(root);
@@ -385,6 +900,10 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 			}
 			
 			parent = nodes.pop();
+			if(parent == revisit) {
+				revisit = NULL_NODE;
+				return parent.data;
+			}
 			if(parent.right != NULL_NODE) {
 				nodes.push(parent.right);
 			}
@@ -395,16 +914,79 @@ public class BinarySearchTree<T extends Comparable<T>> implements Iterable<T> {
 		}
 		
 		public void remove() {
+			if(balanced) {
+				throw new UnsupportedOperationException();
+			}
 			if(parent == NULL_NODE) {
 				throw new IllegalStateException();
-			}		
-			BinarySearchTree.this.remove(parent.data);
+			}
+			T removed = parent.data;
+			BinarySearchTree.this.remove(removed);
+			//a node with two children stays and takes the data of the
+			//largest node on its left, which is not visited yet. If that
+			//was the left child itself, the stack holds the unlinked node
+			if(parent.data != removed) {
+				if(nodes.peek() != parent.left) {
+					nodes.pop();
+					if(parent.left != NULL_NODE) {
+						nodes.push(parent.left);
+					}
+				}
+				revisit = parent;
+				nodes.push(parent);
+			}
 			parent = NULL_NODE;
 			mods++;
 		}
 		
 	}
 	
+	/**
+	 * A range of the tree, from lo included to hi excluded, where a null
+	 * bound means unbounded. Reads go straight to the tree, so the view
+	 * sees later changes. Elements are removed through the iterator or
+	 * remove; adding is not supported.
+	 */
+	private class SubSet extends AbstractSet<T> {
+		private T lo;
+		private T hi;
+
+		SubSet(T lo, T hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new InOrderIterator(lo, hi);
+		}
+
+		@Override
+		public int size() {
+			int upper = (hi == null) ? BinarySearchTree.this.size() : countBelow(hi, false);
+			int lower = (lo == null) ? 0 : countBelow(lo, false);
+			return upper - lower;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean contains(Object o) {
+			T data = (T) o;
+			return inRange(data) && BinarySearchTree.this.contains(data);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean remove(Object o) {
+			T data = (T) o;
+			return inRange(data) && BinarySearchTree.this.remove(data);
+		}
+
+		private boolean inRange(T data) {
+			return (lo == null || data.compareTo(lo) >= 0) && (hi == null || data.compareTo(hi) < 0);
+		}
+	}
+
 	/**
 	 * Wrapper Class for Boolean
 	 *
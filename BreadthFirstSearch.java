@@ -0,0 +1,130 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Bidirectional breadth first search over int indices. One side grows from
+ * the start over successors and the other from the end over predecessors,
+ * always expanding whichever frontier is smaller, until they meet.
+ *
+ * The parent, queue and visited arrays are kept between queries, and
+ * visited marks are stamped with a query number so they never need
+ * clearing. One instance serves one graph and is not thread safe.
+ */
+class BreadthFirstSearch<T> {
+	private IndexedGraph<T> graph;
+	private int[] parent;
+	private int[] child;
+	private int[] visited;
+	private int[] visitedBack;
+	private int[] queue;
+	private int[] queueBack;
+	private int epoch;
+	private int tail;
+	private int tailBack;
+	private int current;
+	private int meet;
+	private final IntConsumer forward;
+	private final IntConsumer backward;
+
+	BreadthFirstSearch(IndexedGraph<T> graph) {
+		this.graph = graph;
+		this.parent = new int[0];
+		this.child = new int[0];
+		this.visited = new int[0];
+		this.visitedBack = new int[0];
+		this.queue = new int[0];
+		this.queueBack = new int[0];
+		this.epoch = 0;
+		this.forward = v -> {
+			if (this.visited[v] != this.epoch) {
+				this.visited[v] = this.epoch;
+				this.parent[v] = this.current;
+				this.queue[this.tail++] = v;
+				if (this.visitedBack[v] == this.epoch && this.meet < 0) {
+					this.meet = v;
+				}
+			}
+		};
+		this.backward = v -> {
+			if (this.visitedBack[v] != this.epoch) {
+				this.visitedBack[v] = this.epoch;
+				this.child[v] = this.current;
+				this.queueBack[this.tailBack++] = v;
+				if (this.visited[v] == this.epoch && this.meet < 0) {
+					this.meet = v;
+				}
+			}
+		};
+	}
+
+	// the first vertex seen by both sides always lies on a shortest path,
+	// because each side finishes a whole level before the other one moves
+	List<T> shortestPath(int start, int end) {
+		begin();
+		this.visited[start] = this.epoch;
+		this.queue[this.tail++] = start;
+		this.visitedBack[end] = this.epoch;
+		this.queueBack[this.tailBack++] = end;
+		if (start == end) {
+			this.meet = start;
+		}
+		int head = 0;
+		int headBack = 0;
+		while (this.meet < 0 && head < this.tail && headBack < this.tailBack) {
+			if (this.tail - head <= this.tailBack - headBack) {
+				int levelEnd = this.tail;
+				while (head < levelEnd && this.meet < 0) {
+					this.current = this.queue[head++];
+					this.graph.forEachSuccessor(this.current, this.forward);
+				}
+			} else {
+				int levelEnd = this.tailBack;
+				while (headBack < levelEnd && this.meet < 0) {
+					this.current = this.queueBack[headBack++];
+					this.graph.forEachPredecessor(this.current, this.backward);
+				}
+			}
+		}
+		if (this.meet < 0) {
+			return null;
+		}
+		ArrayList<T> path = new ArrayList<T>();
+		for (int v = this.meet; v != start; v = this.parent[v]) {
+			path.add(this.graph.keyAt(v));
+		}
+		path.add(this.graph.keyAt(start));
+		Collections.reverse(path);
+		for (int v = this.meet; v != end; ) {
+			v = this.child[v];
+			path.add(this.graph.keyAt(v));
+		}
+		return path;
+	}
+
+	private void begin() {
+		int capacity = this.graph.indexCapacity();
+		if (this.visited.length < capacity) {
+			this.parent = new int[capacity];
+			this.child = new int[capacity];
+			this.visited = new int[capacity];
+			this.visitedBack = new int[capacity];
+			this.queue = new int[capacity];
+			this.queueBack = new int[capacity];
+			this.epoch = 0;
+		}
+		if (this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.visited, 0);
+			Arrays.fill(this.visitedBack, 0);
+			this.epoch = 0;
+		}
+		this.epoch++;
+		this.tail = 0;
+		this.tailBack = 0;
+		this.meet = -1;
+	}
+}
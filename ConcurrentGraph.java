@@ -0,0 +1,292 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Graph that many threads can read and write at once. Neighbor sets are
+ * concurrent sets, so readers never block and iterators are weakly
+ * consistent: they never throw ConcurrentModificationException and see
+ * some, not necessarily all, edges added after they were created.
+ *
+ * Writers take the striped locks of both endpoints, always in stripe order,
+ * so an edge appears in the successor set of from and the predecessor set
+ * of to together. Edges between unrelated vertices are added in parallel.
+ *
+ * shortestPath is a breadth first search from both ends straight over the
+ * concurrent sets, so it sees edges as iterators do and only touches the
+ * vertices it explores. stronglyConnectedComponent runs over a freeze()
+ * snapshot that is kept until the next addEdge or removeEdge.
+ */
+public class ConcurrentGraph<T> extends Graph<T> {
+	private static final int DEFAULT_STRIPES = 64;
+
+	Map<T, Node> keyToNode;
+	private Object[] locks;
+	private AtomicInteger edgeCount;
+	// bumped by every edge change; a snapshot taken at an older count is stale
+	private AtomicInteger mods;
+	private volatile Snapshot snapshot;
+
+	private class Node {
+		Set<T> successors;
+		Set<T> predecessors;
+
+		Node() {
+			this.successors = ConcurrentHashMap.newKeySet();
+			this.predecessors = ConcurrentHashMap.newKeySet();
+		}
+	}
+
+	private class Snapshot {
+		final int mods;
+		final CsrGraph<T> graph;
+
+		Snapshot(int mods, CsrGraph<T> graph) {
+			this.mods = mods;
+			this.graph = graph;
+		}
+	}
+
+	ConcurrentGraph(Set<T> keys) {
+		this(keys, DEFAULT_STRIPES);
+	}
+
+	ConcurrentGraph(Set<T> keys, int stripes) {
+		if (stripes <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.keyToNode = new ConcurrentHashMap<T, Node>(keys.size());
+		for (T key : keys) {
+			this.keyToNode.put(key, new Node());
+		}
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.locks = new Object[size];
+		for (int i = 0; i < this.locks.length; i++) {
+			this.locks[i] = new Object();
+		}
+		this.edgeCount = new AtomicInteger();
+		this.mods = new AtomicInteger();
+	}
+
+	private Node node(T key) {
+		Node node = this.keyToNode.get(key);
+		if (node == null) {
+			throw new NoSuchElementException();
+		}
+		return node;
+	}
+
+	private int stripe(T key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (this.locks.length - 1);
+	}
+
+	@Override
+	public int size() {
+		return this.keyToNode.size();
+	}
+
+	@Override
+	public int numEdges() {
+		return this.edgeCount.get();
+	}
+
+	@Override
+	public boolean addEdge(T from, T to) {
+		Node fromN = node(from);
+		Node toN = node(to);
+		int a = stripe(from);
+		int b = stripe(to);
+		synchronized (this.locks[Math.min(a, b)]) {
+			synchronized (this.locks[Math.max(a, b)]) {
+				if (!fromN.successors.add(to)) {
+					return false;
+				}
+				toN.predecessors.add(from);
+				this.edgeCount.incrementAndGet();
+				this.mods.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public boolean hasVertex(T key) {
+		return this.keyToNode.containsKey(key);
+	}
+
+	@Override
+	public boolean hasEdge(T from, T to) throws NoSuchElementException {
+		node(to);
+		return node(from).successors.contains(to);
+	}
+
+	@Override
+	public boolean removeEdge(T from, T to) throws NoSuchElementException {
+		Node fromN = node(from);
+		Node toN = node(to);
+		int a = stripe(from);
+		int b = stripe(to);
+		synchronized (this.locks[Math.min(a, b)]) {
+			synchronized (this.locks[Math.max(a, b)]) {
+				if (!fromN.successors.remove(to)) {
+					return false;
+				}
+				toN.predecessors.remove(from);
+				this.edgeCount.decrementAndGet();
+				this.mods.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public int outDegree(T key) {
+		return node(key).successors.size();
+	}
+
+	@Override
+	public int inDegree(T key) {
+		return node(key).predecessors.size();
+	}
+
+	@Override
+	public Set<T> keySet() {
+		return Collections.unmodifiableSet(this.keyToNode.keySet());
+	}
+
+	@Override
+	public Set<T> successorSet(T key) {
+		return new HashSet<T>(node(key).successors);
+	}
+
+	@Override
+	public Set<T> predecessorSet(T key) {
+		return new HashSet<T>(node(key).predecessors);
+	}
+
+	@Override
+	public Iterator<T> successorIterator(T key) {
+		return Collections.unmodifiableSet(node(key).successors).iterator();
+	}
+
+	@Override
+	public Iterator<T> predecessorIterator(T key) {
+		return Collections.unmodifiableSet(node(key).predecessors).iterator();
+	}
+
+	// snapshot of the successor sets at roughly this moment; edges written
+	// while it is taken may or may not be included
+	public CsrGraph<T> freeze() {
+		List<T> keys = new ArrayList<T>(this.keyToNode.keySet());
+		Map<T, Integer> keyToIndex = new HashMap<T, Integer>();
+		for (int i = 0; i < keys.size(); i++) {
+			keyToIndex.put(keys.get(i), i);
+		}
+		int n = keys.size();
+		int[] outOffsets = new int[n + 1];
+		IntArrayList targets = new IntArrayList(Math.max(numEdges(), 1));
+		for (int i = 0; i < n; i++) {
+			for (T to : this.keyToNode.get(keys.get(i)).successors) {
+				targets.add(keyToIndex.get(to));
+			}
+			outOffsets[i + 1] = targets.size();
+		}
+		int[] outTargets = targets.toArray();
+		for (int i = 0; i < n; i++) {
+			Arrays.sort(outTargets, outOffsets[i], outOffsets[i + 1]);
+		}
+		return CsrGraph.fromRows(keys, outOffsets, outTargets);
+	}
+
+	// the count is read before freezing, so an edge changed while the
+	// snapshot is taken leaves it stale for the next call
+	@Override
+	public Set<T> stronglyConnectedComponent(T key) {
+		node(key);
+		int mods = this.mods.get();
+		Snapshot snapshot = this.snapshot;
+		if (snapshot == null || snapshot.mods != mods) {
+			snapshot = new Snapshot(mods, freeze());
+			this.snapshot = snapshot;
+		}
+		return snapshot.graph.stronglyConnectedComponent(key);
+	}
+
+	// both sides finish a whole level before the other one moves, so the
+	// first vertex seen by both lies on a shortest path
+	@Override
+	public List<T> shortestPath(T startLabel, T endLabel) {
+		node(startLabel);
+		node(endLabel);
+		Map<T, T> parent = new HashMap<T, T>();
+		Map<T, T> child = new HashMap<T, T>();
+		List<T> queue = new ArrayList<T>();
+		List<T> queueBack = new ArrayList<T>();
+		parent.put(startLabel, startLabel);
+		queue.add(startLabel);
+		child.put(endLabel, endLabel);
+		queueBack.add(endLabel);
+		T meet = (startLabel.equals(endLabel)) ? startLabel : null;
+		int head = 0;
+		int headBack = 0;
+		while (meet == null && head < queue.size() && headBack < queueBack.size()) {
+			if (queue.size() - head <= queueBack.size() - headBack) {
+				int levelEnd = queue.size();
+				meet = expand(queue, head, levelEnd, parent, child, true);
+				head = levelEnd;
+			} else {
+				int levelEnd = queueBack.size();
+				meet = expand(queueBack, headBack, levelEnd, child, parent, false);
+				headBack = levelEnd;
+			}
+		}
+		if (meet == null) {
+			return null;
+		}
+		List<T> path = new ArrayList<T>();
+		for (T v = meet; !v.equals(startLabel); v = parent.get(v)) {
+			path.add(v);
+		}
+		path.add(startLabel);
+		Collections.reverse(path);
+		for (T v = meet; !v.equals(endLabel); ) {
+			v = child.get(v);
+			path.add(v);
+		}
+		return path;
+	}
+
+	// visits the neighbors of queue[head .. levelEnd), over successors or
+	// predecessors, and returns the first one the other side has seen
+	private T expand(List<T> queue, int head, int levelEnd, Map<T, T> seen, Map<T, T> other, boolean forward) {
+		for (int i = head; i < levelEnd; i++) {
+			T u = queue.get(i);
+			Node node = this.keyToNode.get(u);
+			for (T v : (forward) ? node.successors : node.predecessors) {
+				if (!seen.containsKey(v)) {
+					seen.put(v, u);
+					queue.add(v);
+					if (other.containsKey(v)) {
+						return v;
+					}
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,363 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed sparse row snapshot of a graph. The successors of
+ * index i are outTargets[outOffsets[i] .. outOffsets[i + 1]) and its
+ * predecessors are inSources[inOffsets[i] .. inOffsets[i + 1]), both sorted.
+ * Created through freeze() on the mutable graphs.
+ */
+public class CsrGraph<T> extends Graph<T> implements IndexedGraph<T> {
+	Map<T, Integer> keyToIndex;
+	List<T> indexToKey;
+	int[] outOffsets;
+	int[] outTargets;
+	int[] inOffsets;
+	int[] inSources;
+	StronglyConnectedComponents<T> components;
+	ReachabilityIndex<T> reachability;
+	WeaklyConnectedComponents<T> weakComponents;
+	// idle searches: a query takes one, or makes one, and gives it back, so
+	// buffers are reused without two threads sharing a search. Unlike a
+	// ThreadLocal this does not keep the graph alive from every thread
+	// that once queried it
+	private final ConcurrentLinkedDeque<BreadthFirstSearch<T>> searches =
+			new ConcurrentLinkedDeque<BreadthFirstSearch<T>>();
+
+	CsrGraph(List<T> indexToKey, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inSources) {
+		this.indexToKey = indexToKey;
+		this.keyToIndex = new HashMap<T, Integer>();
+		for (int i = 0; i < indexToKey.size(); i++) {
+			this.keyToIndex.put(indexToKey.get(i), i);
+		}
+		this.outOffsets = outOffsets;
+		this.outTargets = outTargets;
+		this.inOffsets = inOffsets;
+		this.inSources = inSources;
+	}
+
+	static <T> CsrGraph<T> of(IndexedGraph<T> graph) {
+		// unused indices are dropped so the snapshot is dense
+		int capacity = graph.indexCapacity();
+		int[] dense = new int[capacity];
+		List<T> keys = new ArrayList<T>();
+		for (int i = 0; i < capacity; i++) {
+			T key = graph.keyAt(i);
+			dense[i] = (key == null) ? -1 : keys.size();
+			if (key != null) {
+				keys.add(key);
+			}
+		}
+		int n = keys.size();
+		int[] outOffsets = new int[n + 1];
+		for (int i = 0; i < capacity; i++) {
+			if (dense[i] >= 0) {
+				outOffsets[dense[i] + 1] = graph.outDegreeAt(i);
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			outOffsets[i + 1] += outOffsets[i];
+		}
+		int[] outTargets = new int[outOffsets[n]];
+		int[] cursor = Arrays.copyOf(outOffsets, n);
+		for (int i = 0; i < capacity; i++) {
+			if (dense[i] >= 0) {
+				int row = dense[i];
+				graph.forEachSuccessor(i, to -> outTargets[cursor[row]++] = dense[to]);
+				Arrays.sort(outTargets, outOffsets[row], outOffsets[row + 1]);
+			}
+		}
+		return fromRows(keys, outOffsets, outTargets);
+	}
+
+	// builds the predecessor side by transposing sorted successor rows, which
+	// leaves every predecessor range sorted as well
+	static <T> CsrGraph<T> fromRows(List<T> keys, int[] outOffsets, int[] outTargets) {
+		int n = keys.size();
+		int[] inOffsets = new int[n + 1];
+		for (int target : outTargets) {
+			inOffsets[target + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			inOffsets[i + 1] += inOffsets[i];
+		}
+		int[] inSources = new int[outTargets.length];
+		int[] cursor = Arrays.copyOf(inOffsets, n);
+		for (int from = 0; from < n; from++) {
+			for (int e = outOffsets[from]; e < outOffsets[from + 1]; e++) {
+				inSources[cursor[outTargets[e]]++] = from;
+			}
+		}
+		return new CsrGraph<T>(keys, outOffsets, outTargets, inOffsets, inSources);
+	}
+
+	@Override
+	public int indexCapacity() {
+		return this.indexToKey.size();
+	}
+
+	@Override
+	public int indexOf(T key) {
+		Integer index = this.keyToIndex.get(key);
+		if (index == null) {
+			throw new NoSuchElementException();
+		}
+		return index;
+	}
+
+	@Override
+	public T keyAt(int index) {
+		return this.indexToKey.get(index);
+	}
+
+	@Override
+	public int outDegreeAt(int index) {
+		return this.outOffsets[index + 1] - this.outOffsets[index];
+	}
+
+	@Override
+	public int inDegreeAt(int index) {
+		return this.inOffsets[index + 1] - this.inOffsets[index];
+	}
+
+	@Override
+	public void forEachSuccessor(int index, IntConsumer action) {
+		for (int e = this.outOffsets[index]; e < this.outOffsets[index + 1]; e++) {
+			action.accept(this.outTargets[e]);
+		}
+	}
+
+	@Override
+	public void forEachPredecessor(int index, IntConsumer action) {
+		for (int e = this.inOffsets[index]; e < this.inOffsets[index + 1]; e++) {
+			action.accept(this.inSources[e]);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.indexToKey.size();
+	}
+
+	@Override
+	public int numEdges() {
+		return this.outTargets.length;
+	}
+
+	@Override
+	public boolean addEdge(T from, T to) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean hasVertex(T key) {
+		return this.keyToIndex.containsKey(key);
+	}
+
+	@Override
+	public boolean hasEdge(T from, T to) throws NoSuchElementException {
+		int row = indexOf(from);
+		int col = indexOf(to);
+		return Arrays.binarySearch(this.outTargets, this.outOffsets[row], this.outOffsets[row + 1], col) >= 0;
+	}
+
+	@Override
+	public boolean removeEdge(T from, T to) throws NoSuchElementException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int outDegree(T key) {
+		return outDegreeAt(indexOf(key));
+	}
+
+	@Override
+	public int inDegree(T key) {
+		return inDegreeAt(indexOf(key));
+	}
+
+	@Override
+	public Set<T> keySet() {
+		return Collections.unmodifiableSet(this.keyToIndex.keySet());
+	}
+
+	@Override
+	public Set<T> successorSet(T key) {
+		int index = indexOf(key);
+		return toKeySet(this.outTargets, this.outOffsets[index], this.outOffsets[index + 1]);
+	}
+
+	@Override
+	public Set<T> predecessorSet(T key) {
+		int index = indexOf(key);
+		return toKeySet(this.inSources, this.inOffsets[index], this.inOffsets[index + 1]);
+	}
+
+	private Set<T> toKeySet(int[] neighbors, int start, int end) {
+		Set<T> set = new HashSet<T>();
+		for (int e = start; e < end; e++) {
+			set.add(this.indexToKey.get(neighbors[e]));
+		}
+		return set;
+	}
+
+	@Override
+	public Iterator<T> successorIterator(T key) {
+		int index = indexOf(key);
+		return new RangeIterator(this.outTargets, this.outOffsets[index], this.outOffsets[index + 1]);
+	}
+
+	@Override
+	public Iterator<T> predecessorIterator(T key) {
+		int index = indexOf(key);
+		return new RangeIterator(this.inSources, this.inOffsets[index], this.inOffsets[index + 1]);
+	}
+
+	@Override
+	public Set<T> stronglyConnectedComponent(T key) {
+		return components().component(key);
+	}
+
+	public List<Set<T>> stronglyConnectedComponents() {
+		return components().components();
+	}
+
+	// the snapshot may be shared between threads, so the cached engines are
+	// built under the graph's lock and never written after that
+	private synchronized StronglyConnectedComponents<T> components() {
+		if (this.components == null) {
+			this.components = new StronglyConnectedComponents<T>(this);
+		}
+		return this.components;
+	}
+
+	public TopologicalSort<T> topologicalSort() {
+		return new TopologicalSort<T>(this);
+	}
+
+	// builds the index on first use
+	public boolean canReach(T from, T to) {
+		return reachability().canReach(from, to);
+	}
+
+	private synchronized ReachabilityIndex<T> reachability() {
+		if (this.reachability == null) {
+			this.reachability = new ReachabilityIndex<T>(this, components());
+		}
+		return this.reachability;
+	}
+
+	// built on first use
+	public boolean weaklyConnected(T a, T b) {
+		return weakComponents().connected(a, b);
+	}
+
+	public List<Set<T>> weaklyConnectedComponents() {
+		return weakComponents().components();
+	}
+
+	private synchronized WeaklyConnectedComponents<T> weakComponents() {
+		if (this.weakComponents == null) {
+			WeaklyConnectedComponents<T> weak = new WeaklyConnectedComponents<T>(this);
+			weak.flatten();
+			this.weakComponents = weak;
+		}
+		return this.weakComponents;
+	}
+
+	@Override
+	public List<T> shortestPath(T startLabel, T endLabel) {
+		int start = indexOf(startLabel);
+		int end = indexOf(endLabel);
+		BreadthFirstSearch<T> search = this.searches.pollFirst();
+		if (search == null) {
+			search = new BreadthFirstSearch<T>(this);
+		}
+		try {
+			return search.shortestPath(start, end);
+		} finally {
+			this.searches.offerFirst(search);
+		}
+	}
+
+	// breadth first levels indexed like keyAt, -1 where start cannot reach
+	public int[] bfsLevels(T start) {
+		return bfsLevels(start, ForkJoinPool.commonPool());
+	}
+
+	public int[] bfsLevels(T start, ForkJoinPool pool) {
+		return new ParallelBreadthFirstSearch<T>(this, pool).levels(indexOf(start));
+	}
+
+	// PageRank scores indexed like keyAt, with damping 0.85
+	public double[] pageRank() {
+		return pageRank(0.85, 1e-9);
+	}
+
+	public double[] pageRank(double damping, double tolerance) {
+		return pageRank(damping, tolerance, ForkJoinPool.commonPool());
+	}
+
+	public double[] pageRank(double damping, double tolerance, ForkJoinPool pool) {
+		return new PageRank<T>(this, pool).scores(damping, tolerance);
+	}
+
+	// entry d holds the number of vertices with out-degree d
+	public int[] outDegreeDistribution() {
+		return distribution(this.outOffsets);
+	}
+
+	public int[] inDegreeDistribution() {
+		return distribution(this.inOffsets);
+	}
+
+	private static int[] distribution(int[] offsets) {
+		int max = 0;
+		for (int i = 0; i + 1 < offsets.length; i++) {
+			max = Math.max(max, offsets[i + 1] - offsets[i]);
+		}
+		int[] counts = new int[max + 1];
+		for (int i = 0; i + 1 < offsets.length; i++) {
+			counts[offsets[i + 1] - offsets[i]]++;
+		}
+		return counts;
+	}
+
+	private class RangeIterator implements Iterator<T> {
+		private int[] neighbors;
+		private int index;
+		private int end;
+
+		RangeIterator(int[] neighbors, int start, int end) {
+			this.neighbors = neighbors;
+			this.index = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.index < this.end;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return indexToKey.get(this.neighbors[this.index++]);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive doubles, kept parallel to an IntArrayList of
+ * successors to hold edge weights.
+ */
+class DoubleArrayList {
+	private double[] data;
+	private int size;
+
+	DoubleArrayList() {
+		this(4);
+	}
+
+	DoubleArrayList(int capacity) {
+		this.data = new double[Math.max(capacity, 1)];
+		this.size = 0;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	double get(int index) {
+		if (index >= this.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.data[index];
+	}
+
+	void set(int index, double value) {
+		if (index >= this.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.data[index] = value;
+	}
+
+	void add(double value) {
+		if (this.size == this.data.length) {
+			this.data = Arrays.copyOf(this.data, this.data.length * 2);
+		}
+		this.data[this.size++] = value;
+	}
+
+	double removeAt(int index) {
+		double value = get(index);
+		System.arraycopy(this.data, index + 1, this.data, index, this.size - index - 1);
+		this.size--;
+		return value;
+	}
+}
@@ -0,0 +1,42 @@
+package graphs;
+
+/**
+ * Directed edge between two keys, used to hand edges to addEdges and
+ * GraphBuilder in bulk.
+ */
+public class Edge<T> {
+	private final T from;
+	private final T to;
+
+	public Edge(T from, T to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	public T getFrom() {
+		return this.from;
+	}
+
+	public T getTo() {
+		return this.to;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Edge)) {
+			return false;
+		}
+		Edge<?> other = (Edge<?>) o;
+		return this.from.equals(other.from) && this.to.equals(other.to);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.from.hashCode() + this.to.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.from + " -> " + this.to;
+	}
+}
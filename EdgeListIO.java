@@ -0,0 +1,87 @@
+package graphs;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Streams text edge lists in and out of graphs one line at a time. Each
+ * line is "from<delimiter>to"; a line with a single key declares a vertex
+ * with no edges, and blank lines and lines starting with # are skipped.
+ * Keys are not quoted, so they must not contain the delimiter.
+ *
+ * Reading feeds a GraphBuilder, which keeps only interned keys and packed
+ * edges, so memory grows with the graph being built and not with the size
+ * of the text.
+ */
+public class EdgeListIO {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private EdgeListIO() {
+	}
+
+	public static <T> GraphBuilder<T> read(Path path, char delimiter, Function<String, ? extends T> parseKey)
+			throws IOException {
+		return read(path, delimiter, parseKey, new GraphBuilder<T>());
+	}
+
+	public static <T> GraphBuilder<T> read(Path path, char delimiter, Function<String, ? extends T> parseKey,
+			GraphBuilder<T> builder) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+				BufferedReader in = new BufferedReader(
+						Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+			String line;
+			long lineNumber = 0;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.charAt(0) == '#') {
+					continue;
+				}
+				int split = line.indexOf(delimiter);
+				if (split < 0) {
+					builder.addVertex(parseKey.apply(line));
+					continue;
+				}
+				String from = line.substring(0, split).trim();
+				String to = line.substring(split + 1).trim();
+				if (from.isEmpty() || to.isEmpty() || to.indexOf(delimiter) >= 0) {
+					throw new IOException(path + ":" + lineNumber + ": malformed edge: " + line);
+				}
+				builder.addEdge(parseKey.apply(from), parseKey.apply(to));
+			}
+		}
+		return builder;
+	}
+
+	public static <T> void write(Graph<T> graph, Path path, char delimiter, Function<? super T, String> formatKey)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				Writer out = new BufferedWriter(
+						Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+			for (T key : graph.keySet()) {
+				String from = formatKey.apply(key);
+				Iterator<T> successors = graph.successorIterator(key);
+				if (!successors.hasNext() && graph.inDegree(key) == 0) {
+					out.write(from);
+					out.write('\n');
+				}
+				while (successors.hasNext()) {
+					out.write(from);
+					out.write(delimiter);
+					out.write(formatKey.apply(successors.next()));
+					out.write('\n');
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects vertices and edges for a graph that is built in one go. Keys are
+ * interned to ints as they arrive and edges are buffered as packed longs,
+ * so loading costs one sort of the buffer instead of a duplicate check per
+ * edge. Endpoints that were never added with addVertex are added on first
+ * use.
+ */
+public class GraphBuilder<T> {
+	private Map<T, Integer> keyToIndex;
+	private List<T> indexToKey;
+	private long[] edges;
+	private int edgeCount;
+
+	public GraphBuilder() {
+		this(16, 16);
+	}
+
+	public GraphBuilder(int expectedVertices, int expectedEdges) {
+		this.keyToIndex = new HashMap<T, Integer>(Math.max(expectedVertices * 4 / 3, 16));
+		this.indexToKey = new ArrayList<T>(expectedVertices);
+		this.edges = new long[Math.max(expectedEdges, 16)];
+		this.edgeCount = 0;
+	}
+
+	public GraphBuilder<T> addVertex(T key) {
+		intern(key);
+		return this;
+	}
+
+	public GraphBuilder<T> addEdge(T from, T to) {
+		int f = intern(from);
+		int t = intern(to);
+		if (this.edgeCount == this.edges.length) {
+			// drop duplicates before growing, so repeated input edges do not
+			// grow the buffer past the size of the final graph
+			this.edgeCount = sortUnique(this.edges, this.edgeCount);
+			if (this.edgeCount > this.edges.length / 2) {
+				this.edges = Arrays.copyOf(this.edges, this.edges.length * 2);
+			}
+		}
+		this.edges[this.edgeCount++] = LongIntHashMap.edge(f, t);
+		return this;
+	}
+
+	public GraphBuilder<T> addEdges(Iterable<Edge<T>> edges) {
+		for (Edge<T> edge : edges) {
+			addEdge(edge.getFrom(), edge.getTo());
+		}
+		return this;
+	}
+
+	public int numVertices() {
+		return this.indexToKey.size();
+	}
+
+	public PrimitiveAdjacencyListGraph<T> build() {
+		this.edgeCount = sortUnique(this.edges, this.edgeCount);
+		return new PrimitiveAdjacencyListGraph<T>(this.indexToKey, this.edges, this.edgeCount);
+	}
+
+	public CsrGraph<T> buildCsr() {
+		this.edgeCount = sortUnique(this.edges, this.edgeCount);
+		int n = this.indexToKey.size();
+		int[] outOffsets = new int[n + 1];
+		int[] outTargets = new int[this.edgeCount];
+		for (int i = 0; i < this.edgeCount; i++) {
+			outOffsets[(int) (this.edges[i] >>> 32) + 1]++;
+			outTargets[i] = (int) this.edges[i];
+		}
+		for (int i = 0; i < n; i++) {
+			outOffsets[i + 1] += outOffsets[i];
+		}
+		return CsrGraph.fromRows(new ArrayList<T>(this.indexToKey), outOffsets, outTargets);
+	}
+
+	private int intern(T key) {
+		if (key == null) {
+			throw new IllegalArgumentException();
+		}
+		Integer index = this.keyToIndex.get(key);
+		if (index == null) {
+			index = this.indexToKey.size();
+			this.keyToIndex.put(key, index);
+			this.indexToKey.add(key);
+		}
+		return index;
+	}
+
+	// sorts the first count packed edges and drops duplicates, returning the
+	// new count; sorted order groups edges by source, then by target
+	static int sortUnique(long[] edges, int count) {
+		Arrays.sort(edges, 0, count);
+		int unique = 0;
+		for (int i = 0; i < count; i++) {
+			if (unique == 0 || edges[i] != edges[unique - 1]) {
+				edges[unique++] = edges[i];
+			}
+		}
+		return unique;
+	}
+}
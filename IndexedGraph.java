@@ -0,0 +1,26 @@
+package graphs;
+
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * View of a graph whose vertices are numbered 0 to indexCapacity() - 1.
+ * Algorithms that run over several graph layouts are written against this
+ * view so they can work on ints instead of keys.
+ */
+interface IndexedGraph<T> {
+	int indexCapacity();
+
+	int indexOf(T key) throws NoSuchElementException;
+
+	// null when the index is not in use
+	T keyAt(int index);
+
+	int outDegreeAt(int index);
+
+	int inDegreeAt(int index);
+
+	void forEachSuccessor(int index, IntConsumer action);
+
+	void forEachPredecessor(int index, IntConsumer action);
+}
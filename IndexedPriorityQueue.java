@@ -0,0 +1,139 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min heap of int ids ordered by a double priority, laid out like the
+ * project's PriorityQueue but storing ids and priorities in primitive
+ * arrays. position[id] tracks where each id sits in the heap, which makes
+ * decreaseKey O(log n) instead of a linear indexOf.
+ */
+class IndexedPriorityQueue {
+	private int[] heap;
+	private int[] position;
+	private double[] priority;
+	private int size;
+
+	IndexedPriorityQueue(int capacity) {
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.priority = new double[capacity];
+		Arrays.fill(this.position, -1);
+		this.size = 0;
+	}
+
+	int capacity() {
+		return this.position.length;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	boolean contains(int id) {
+		return this.position[id] >= 0;
+	}
+
+	double priorityOf(int id) {
+		if (!contains(id)) {
+			throw new NoSuchElementException();
+		}
+		return this.priority[id];
+	}
+
+	void add(int id, double key) {
+		if (contains(id)) {
+			throw new IllegalArgumentException();
+		}
+		this.priority[id] = key;
+		this.heap[this.size] = id;
+		this.position[id] = this.size;
+		this.size++;
+		percolateUp(this.size - 1);
+	}
+
+	// lowers the priority of an id already in the queue
+	void decreaseKey(int id, double key) {
+		if (key > priorityOf(id)) {
+			throw new IllegalArgumentException();
+		}
+		this.priority[id] = key;
+		percolateUp(this.position[id]);
+	}
+
+	int peek() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return this.heap[0];
+	}
+
+	int poll() {
+		int head = peek();
+		this.size--;
+		this.position[head] = -1;
+		if (this.size > 0) {
+			this.heap[0] = this.heap[this.size];
+			this.position[this.heap[0]] = 0;
+			percolateDown(0);
+		}
+		return head;
+	}
+
+	void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.position[this.heap[i]] = -1;
+		}
+		this.size = 0;
+	}
+
+	private void percolateUp(int index) {
+		int currentIndex = index;
+		int id = this.heap[currentIndex];
+		while (currentIndex > 0) {
+			int parentIndex = (currentIndex - 1) / 2;
+			int parent = this.heap[parentIndex];
+			if (this.priority[parent] <= this.priority[id]) {
+				break;
+			}
+			this.heap[currentIndex] = parent;
+			this.position[parent] = currentIndex;
+			currentIndex = parentIndex;
+		}
+		this.heap[currentIndex] = id;
+		this.position[id] = currentIndex;
+	}
+
+	private void percolateDown(int index) {
+		int currentIndex = index;
+		int id = this.heap[currentIndex];
+		while (true) {
+			int smallest = findSmallestChild(currentIndex);
+			if (smallest == -1 || this.priority[this.heap[smallest]] >= this.priority[id]) {
+				break;
+			}
+			this.heap[currentIndex] = this.heap[smallest];
+			this.position[this.heap[currentIndex]] = currentIndex;
+			currentIndex = smallest;
+		}
+		this.heap[currentIndex] = id;
+		this.position[id] = currentIndex;
+	}
+
+	private int findSmallestChild(int index) {
+		int lcIndex = index * 2 + 1;
+		int rcIndex = index * 2 + 2;
+		if (lcIndex >= this.size) {
+			return -1;
+		}
+		if (rcIndex >= this.size) {
+			return lcIndex;
+		}
+		return (this.priority[this.heap[rcIndex]] < this.priority[this.heap[lcIndex]]) ? rcIndex : lcIndex;
+	}
+}
@@ -0,0 +1,93 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for adjacency without boxing.
+ */
+class IntArrayList {
+	private static final int DEFAULT_CAPACITY = 4;
+
+	private int[] data;
+	private int size;
+
+	IntArrayList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	IntArrayList(int capacity) {
+		this.data = new int[Math.max(capacity, 1)];
+		this.size = 0;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	int get(int index) {
+		if (index >= this.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.data[index];
+	}
+
+	void set(int index, int value) {
+		if (index >= this.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.data[index] = value;
+	}
+
+	void add(int value) {
+		if (this.size == this.data.length) {
+			this.data = Arrays.copyOf(this.data, this.data.length * 2);
+		}
+		this.data[this.size++] = value;
+	}
+
+	void addAll(IntArrayList other) {
+		if (this.size + other.size > this.data.length) {
+			this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.size + other.size));
+		}
+		System.arraycopy(other.data, 0, this.data, this.size, other.size);
+		this.size += other.size;
+	}
+
+	int indexOf(int value) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.data[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// keeps the remaining values in insertion order
+	boolean removeValue(int value) {
+		int index = indexOf(value);
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	int removeAt(int index) {
+		int value = get(index);
+		System.arraycopy(this.data, index + 1, this.data, index, this.size - index - 1);
+		this.size--;
+		return value;
+	}
+
+	void clear() {
+		this.size = 0;
+	}
+
+	int[] toArray() {
+		return Arrays.copyOf(this.data, this.size);
+	}
+}
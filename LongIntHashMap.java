@@ -0,0 +1,153 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non-negative longs to ints. Edges are
+ * stored as (from << 32) | to so lookups never box.
+ */
+class LongIntHashMap {
+	// returned by lookups for a key that is not in the map
+	static final int MISSING = -1;
+	private static final long EMPTY = -1L;
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	LongIntHashMap() {
+		this(16);
+	}
+
+	LongIntHashMap(int expected) {
+		int capacity = Integer.highestOneBit(Math.max((int) (expected / LOAD_FACTOR), 8) - 1) << 1;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.mask = capacity - 1;
+		this.size = 0;
+	}
+
+	static long edge(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean containsKey(long key) {
+		return get(key) != MISSING;
+	}
+
+	int get(long key) {
+		int i = slot(key);
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == key) {
+				return this.values[i];
+			}
+			i = (i + 1) & this.mask;
+		}
+		return MISSING;
+	}
+
+	// returns the previous value, or MISSING if the key was not there
+	int put(long key, int value) {
+		return insert(key, value, true);
+	}
+
+	// leaves a key that is already there alone and returns its value
+	int putIfAbsent(long key, int value) {
+		return insert(key, value, false);
+	}
+
+	private int insert(long key, int value, boolean replace) {
+		if (key < 0) {
+			throw new IllegalArgumentException();
+		}
+		int i = slot(key);
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == key) {
+				int previous = this.values[i];
+				if (replace) {
+					this.values[i] = value;
+				}
+				return previous;
+			}
+			i = (i + 1) & this.mask;
+		}
+		this.keys[i] = key;
+		this.values[i] = value;
+		this.size++;
+		if (this.size > this.keys.length * LOAD_FACTOR) {
+			rehash(this.keys.length * 2);
+		}
+		return MISSING;
+	}
+
+	// returns the removed value, or MISSING
+	int remove(long key) {
+		int i = slot(key);
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == key) {
+				int value = this.values[i];
+				shiftBack(i);
+				this.size--;
+				return value;
+			}
+			i = (i + 1) & this.mask;
+		}
+		return MISSING;
+	}
+
+	void clear() {
+		Arrays.fill(this.keys, EMPTY);
+		this.size = 0;
+	}
+
+	// backward shift deletion, so no tombstones are left behind
+	private void shiftBack(int hole) {
+		int i = hole;
+		while (true) {
+			i = (i + 1) & this.mask;
+			long key = this.keys[i];
+			if (key == EMPTY) {
+				break;
+			}
+			int home = slot(key);
+			boolean movable = (hole <= i) ? (home <= hole || home > i) : (home <= hole && home > i);
+			if (movable) {
+				this.keys[hole] = key;
+				this.values[hole] = this.values[i];
+				hole = i;
+			}
+		}
+		this.keys[hole] = EMPTY;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != EMPTY) {
+				int i = slot(oldKeys[j]);
+				while (this.keys[i] != EMPTY) {
+					i = (i + 1) & this.mask;
+				}
+				this.keys[i] = oldKeys[j];
+				this.values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & this.mask;
+	}
+}
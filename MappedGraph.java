@@ -0,0 +1,337 @@
+package graphs;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only graph backed by a memory mapped file in the binary CSR format
+ * written by write(). The key dictionary is read onto the heap because keys
+ * are looked up by hash; the offset and neighbor arrays stay in the mapped
+ * file and are read directly from it.
+ *
+ * Layout, big endian: magic, version, vertex count and edge count as ints,
+ * then the file positions of the five sections below as longs. The key
+ * section holds every key as a length-prefixed UTF-8 string in index order,
+ * followed by the int arrays outOffsets, outTargets, inOffsets and inSources
+ * of a CsrGraph. Each int array is mapped on its own, so it is limited to
+ * 2 GB.
+ */
+public class MappedGraph<T> extends Graph<T> implements IndexedGraph<T> {
+	private static final int MAGIC = 0x43535247;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 4 * 4 + 5 * 8;
+
+	Map<T, Integer> keyToIndex;
+	List<T> indexToKey;
+	IntBuffer outOffsets;
+	IntBuffer outTargets;
+	IntBuffer inOffsets;
+	IntBuffer inSources;
+	private int edgeCount;
+	StronglyConnectedComponents<T> components;
+	// idle searches, pooled as in CsrGraph
+	private final ConcurrentLinkedDeque<BreadthFirstSearch<T>> searches =
+			new ConcurrentLinkedDeque<BreadthFirstSearch<T>>();
+
+	private MappedGraph(List<T> indexToKey, int edgeCount, IntBuffer outOffsets, IntBuffer outTargets,
+			IntBuffer inOffsets, IntBuffer inSources) {
+		this.indexToKey = indexToKey;
+		this.keyToIndex = new HashMap<T, Integer>(Math.max(indexToKey.size() * 4 / 3, 16));
+		for (int i = 0; i < indexToKey.size(); i++) {
+			this.keyToIndex.put(indexToKey.get(i), i);
+		}
+		this.edgeCount = edgeCount;
+		this.outOffsets = outOffsets;
+		this.outTargets = outTargets;
+		this.inOffsets = inOffsets;
+		this.inSources = inSources;
+	}
+
+	public static <T> void write(CsrGraph<T> graph, Path path, Function<? super T, String> keyToString)
+			throws IOException {
+		int n = graph.size();
+		int m = graph.numEdges();
+		long keyBytes = 0;
+		for (int i = 0; i < n; i++) {
+			keyBytes += 4 + keyToString.apply(graph.keyAt(i)).getBytes(StandardCharsets.UTF_8).length;
+		}
+		long keysPos = HEADER_BYTES;
+		long outOffsetsPos = keysPos + keyBytes;
+		long outTargetsPos = outOffsetsPos + 4L * (n + 1);
+		long inOffsetsPos = outTargetsPos + 4L * m;
+		long inSourcesPos = inOffsetsPos + 4L * (n + 1);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(n);
+			out.writeInt(m);
+			out.writeLong(keysPos);
+			out.writeLong(outOffsetsPos);
+			out.writeLong(outTargetsPos);
+			out.writeLong(inOffsetsPos);
+			out.writeLong(inSourcesPos);
+			for (int i = 0; i < n; i++) {
+				byte[] bytes = keyToString.apply(graph.keyAt(i)).getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			writeInts(out, graph.outOffsets);
+			writeInts(out, graph.outTargets);
+			writeInts(out, graph.inOffsets);
+			writeInts(out, graph.inSources);
+		}
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	public static <T> MappedGraph<T> open(Path path, Function<String, ? extends T> stringToKey) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("not a graph file: " + path);
+			}
+			int n = header.getInt();
+			int m = header.getInt();
+			long keysPos = header.getLong();
+			long outOffsetsPos = header.getLong();
+			long outTargetsPos = header.getLong();
+			long inOffsetsPos = header.getLong();
+			long inSourcesPos = header.getLong();
+
+			List<T> keys = new ArrayList<T>(n);
+			MappedByteBuffer keyBuffer = channel.map(FileChannel.MapMode.READ_ONLY, keysPos, outOffsetsPos - keysPos);
+			byte[] bytes = new byte[64];
+			for (int i = 0; i < n; i++) {
+				int length = keyBuffer.getInt();
+				if (length > bytes.length) {
+					bytes = new byte[Math.max(length, bytes.length * 2)];
+				}
+				keyBuffer.get(bytes, 0, length);
+				keys.add(stringToKey.apply(new String(bytes, 0, length, StandardCharsets.UTF_8)));
+			}
+			// the mappings stay valid after the channel is closed
+			return new MappedGraph<T>(keys, m,
+					mapInts(channel, outOffsetsPos, n + 1),
+					mapInts(channel, outTargetsPos, m),
+					mapInts(channel, inOffsetsPos, n + 1),
+					mapInts(channel, inSourcesPos, m));
+		}
+	}
+
+	private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+	}
+
+	@Override
+	public int indexCapacity() {
+		return this.indexToKey.size();
+	}
+
+	@Override
+	public int indexOf(T key) {
+		Integer index = this.keyToIndex.get(key);
+		if (index == null) {
+			throw new NoSuchElementException();
+		}
+		return index;
+	}
+
+	@Override
+	public T keyAt(int index) {
+		return this.indexToKey.get(index);
+	}
+
+	@Override
+	public int outDegreeAt(int index) {
+		return this.outOffsets.get(index + 1) - this.outOffsets.get(index);
+	}
+
+	@Override
+	public int inDegreeAt(int index) {
+		return this.inOffsets.get(index + 1) - this.inOffsets.get(index);
+	}
+
+	@Override
+	public void forEachSuccessor(int index, IntConsumer action) {
+		int end = this.outOffsets.get(index + 1);
+		for (int e = this.outOffsets.get(index); e < end; e++) {
+			action.accept(this.outTargets.get(e));
+		}
+	}
+
+	@Override
+	public void forEachPredecessor(int index, IntConsumer action) {
+		int end = this.inOffsets.get(index + 1);
+		for (int e = this.inOffsets.get(index); e < end; e++) {
+			action.accept(this.inSources.get(e));
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.indexToKey.size();
+	}
+
+	@Override
+	public int numEdges() {
+		return this.edgeCount;
+	}
+
+	@Override
+	public boolean addEdge(T from, T to) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean hasVertex(T key) {
+		return this.keyToIndex.containsKey(key);
+	}
+
+	// rows are sorted, so this is a binary search over the mapped row
+	@Override
+	public boolean hasEdge(T from, T to) throws NoSuchElementException {
+		int row = indexOf(from);
+		int col = indexOf(to);
+		int lo = this.outOffsets.get(row);
+		int hi = this.outOffsets.get(row + 1) - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int target = this.outTargets.get(mid);
+			if (target < col) {
+				lo = mid + 1;
+			} else if (target > col) {
+				hi = mid - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeEdge(T from, T to) throws NoSuchElementException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int outDegree(T key) {
+		return outDegreeAt(indexOf(key));
+	}
+
+	@Override
+	public int inDegree(T key) {
+		return inDegreeAt(indexOf(key));
+	}
+
+	@Override
+	public Set<T> keySet() {
+		return Collections.unmodifiableSet(this.keyToIndex.keySet());
+	}
+
+	@Override
+	public Set<T> successorSet(T key) {
+		Set<T> set = new HashSet<T>();
+		forEachSuccessor(indexOf(key), v -> set.add(this.indexToKey.get(v)));
+		return set;
+	}
+
+	@Override
+	public Set<T> predecessorSet(T key) {
+		Set<T> set = new HashSet<T>();
+		forEachPredecessor(indexOf(key), v -> set.add(this.indexToKey.get(v)));
+		return set;
+	}
+
+	@Override
+	public Iterator<T> successorIterator(T key) {
+		int index = indexOf(key);
+		return new RangeIterator(this.outTargets, this.outOffsets.get(index), this.outOffsets.get(index + 1));
+	}
+
+	@Override
+	public Iterator<T> predecessorIterator(T key) {
+		int index = indexOf(key);
+		return new RangeIterator(this.inSources, this.inOffsets.get(index), this.inOffsets.get(index + 1));
+	}
+
+	// the decomposition copies the arrays onto the heap once
+	@Override
+	public Set<T> stronglyConnectedComponent(T key) {
+		return components().component(key);
+	}
+
+	private synchronized StronglyConnectedComponents<T> components() {
+		if (this.components == null) {
+			this.components = new StronglyConnectedComponents<T>(this);
+		}
+		return this.components;
+	}
+
+	public TopologicalSort<T> topologicalSort() {
+		return new TopologicalSort<T>(this);
+	}
+
+	@Override
+	public List<T> shortestPath(T startLabel, T endLabel) {
+		int start = indexOf(startLabel);
+		int end = indexOf(endLabel);
+		BreadthFirstSearch<T> search = this.searches.pollFirst();
+		if (search == null) {
+			search = new BreadthFirstSearch<T>(this);
+		}
+		try {
+			return search.shortestPath(start, end);
+		} finally {
+			this.searches.offerFirst(search);
+		}
+	}
+
+	private class RangeIterator implements Iterator<T> {
+		private IntBuffer neighbors;
+		private int index;
+		private int end;
+
+		RangeIterator(IntBuffer neighbors, int start, int end) {
+			this.neighbors = neighbors;
+			this.index = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.index < this.end;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return indexToKey.get(this.neighbors.get(this.index++));
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Power iteration PageRank over a CSR snapshot. Every iteration pulls rank
+ * along the predecessor arrays, so each vertex writes only its own score and
+ * chunks of vertices run in parallel without synchronization. The rank of
+ * vertices with no successors is spread evenly over all vertices.
+ *
+ * Iteration stops once the L1 distance between two successive score vectors
+ * falls below the tolerance, or after MAX_ITERATIONS.
+ */
+class PageRank<T> {
+	private static final int GRAIN = 4096;
+	private static final int MAX_ITERATIONS = 100;
+
+	private CsrGraph<T> graph;
+	private ForkJoinPool pool;
+	private double damping;
+	private double[] rank;
+	private double[] next;
+	private double[] contribution;
+	private double[] partial;
+	private double base;
+	private boolean pull;
+
+	PageRank(CsrGraph<T> graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+	}
+
+	// scores indexed like keyAt, summing to 1
+	double[] scores(double damping, double tolerance) {
+		if (!(damping >= 0 && damping <= 1) || !(tolerance > 0)) {
+			throw new IllegalArgumentException();
+		}
+		int n = this.graph.size();
+		this.damping = damping;
+		this.rank = new double[n];
+		this.next = new double[n];
+		this.contribution = new double[n];
+		int chunks = Math.max((n + GRAIN - 1) / GRAIN, 1);
+		this.partial = new double[chunks];
+		if (n == 0) {
+			return this.rank;
+		}
+		Arrays.fill(this.rank, 1.0 / n);
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			this.pull = false;
+			this.pool.invoke(new Step(0, chunks));
+			double dangling = sum();
+			this.base = (1 - damping) / n + damping * dangling / n;
+			this.pull = true;
+			this.pool.invoke(new Step(0, chunks));
+			double change = sum();
+			double[] swap = this.rank;
+			this.rank = this.next;
+			this.next = swap;
+			if (change < tolerance) {
+				break;
+			}
+		}
+		double[] result = this.rank;
+		this.rank = null;
+		this.next = null;
+		this.contribution = null;
+		return result;
+	}
+
+	private double sum() {
+		double total = 0;
+		for (double value : this.partial) {
+			total += value;
+		}
+		return total;
+	}
+
+	// spreads each vertex's rank over its successors; returns the rank held
+	// by vertices with no successors
+	private double scatter(int chunk) {
+		int[] offsets = this.graph.outOffsets;
+		double dangling = 0;
+		int end = Math.min(this.graph.size(), (chunk + 1) * GRAIN);
+		for (int u = chunk * GRAIN; u < end; u++) {
+			int degree = offsets[u + 1] - offsets[u];
+			if (degree == 0) {
+				dangling += this.rank[u];
+				this.contribution[u] = 0;
+			} else {
+				this.contribution[u] = this.rank[u] / degree;
+			}
+		}
+		return dangling;
+	}
+
+	// returns the L1 change of the chunk's scores
+	private double gather(int chunk) {
+		int[] offsets = this.graph.inOffsets;
+		int[] sources = this.graph.inSources;
+		double change = 0;
+		int end = Math.min(this.graph.size(), (chunk + 1) * GRAIN);
+		for (int v = chunk * GRAIN; v < end; v++) {
+			double sum = 0;
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				sum += this.contribution[sources[e]];
+			}
+			double score = this.base + this.damping * sum;
+			change += Math.abs(score - this.rank[v]);
+			this.next[v] = score;
+		}
+		return change;
+	}
+
+	private class Step extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int lo;
+		private int hi;
+
+		Step(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.hi - this.lo == 1) {
+				partial[this.lo] = pull ? gather(this.lo) : scatter(this.lo);
+				return;
+			}
+			int mid = (this.lo + this.hi) >>> 1;
+			invokeAll(new Step(this.lo, mid), new Step(mid, this.hi));
+		}
+	}
+}
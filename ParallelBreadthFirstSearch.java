@@ -0,0 +1,170 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level synchronous breadth first search over a CSR snapshot. Each level is
+ * split into chunks that run in parallel on a ForkJoinPool and write into
+ * their own next-frontier buffers. Vertices are claimed through an atomic
+ * visited bitset.
+ *
+ * While the frontier is small a level is expanded top down, from frontier
+ * vertices over their successors. Once the frontier's outgoing edges
+ * outnumber a fraction of the unexplored edges, levels are expanded bottom
+ * up instead: every unvisited vertex scans its predecessors and stops at
+ * the first one in the frontier.
+ */
+class ParallelBreadthFirstSearch<T> {
+	// a multiple of 64, so bottom up chunks own whole words of the bitsets
+	private static final int GRAIN = 2048;
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	private CsrGraph<T> graph;
+	private ForkJoinPool pool;
+	private int[] levels;
+	private AtomicLongArray visited;
+	private long[] frontierBits;
+	private int[] frontier;
+	private int frontierSize;
+	private int level;
+	private boolean bottomUp;
+	private IntArrayList[] buffers;
+
+	ParallelBreadthFirstSearch(CsrGraph<T> graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+	}
+
+	// level of every index, -1 where source cannot reach
+	int[] levels(int source) {
+		int n = this.graph.size();
+		this.levels = new int[n];
+		Arrays.fill(this.levels, -1);
+		this.visited = new AtomicLongArray((n + 63) >>> 6);
+		this.frontierBits = new long[(n + 63) >>> 6];
+		this.frontier = new int[] { source };
+		this.frontierSize = 1;
+		this.level = 0;
+		this.bottomUp = false;
+		this.levels[source] = 0;
+		claim(source);
+		long frontierEdges = this.graph.outDegreeAt(source);
+		long unexploredEdges = this.graph.numEdges() - frontierEdges;
+		while (this.frontierSize > 0) {
+			if (!this.bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+				this.bottomUp = true;
+			} else if (this.bottomUp && this.frontierSize < n / BETA) {
+				this.bottomUp = false;
+			}
+			int chunks;
+			if (this.bottomUp) {
+				Arrays.fill(this.frontierBits, 0);
+				for (int i = 0; i < this.frontierSize; i++) {
+					this.frontierBits[this.frontier[i] >>> 6] |= 1L << this.frontier[i];
+				}
+				chunks = (n + GRAIN - 1) / GRAIN;
+			} else {
+				chunks = (this.frontierSize + GRAIN - 1) / GRAIN;
+			}
+			this.buffers = new IntArrayList[chunks];
+			this.pool.invoke(new Step(0, chunks));
+			IntArrayList next = new IntArrayList(16);
+			for (IntArrayList buffer : this.buffers) {
+				next.addAll(buffer);
+			}
+			this.frontier = next.toArray();
+			this.frontierSize = this.frontier.length;
+			this.level++;
+			frontierEdges = 0;
+			for (int i = 0; i < this.frontierSize; i++) {
+				frontierEdges += this.graph.outDegreeAt(this.frontier[i]);
+			}
+			unexploredEdges -= frontierEdges;
+		}
+		int[] result = this.levels;
+		this.levels = null;
+		this.visited = null;
+		this.frontier = null;
+		this.buffers = null;
+		return result;
+	}
+
+	private boolean claim(int v) {
+		int word = v >>> 6;
+		long bit = 1L << v;
+		while (true) {
+			long old = this.visited.get(word);
+			if ((old & bit) != 0) {
+				return false;
+			}
+			if (this.visited.compareAndSet(word, old, old | bit)) {
+				return true;
+			}
+		}
+	}
+
+	private IntArrayList topDown(int chunk) {
+		int[] offsets = this.graph.outOffsets;
+		int[] targets = this.graph.outTargets;
+		IntArrayList next = new IntArrayList();
+		int end = Math.min(this.frontierSize, (chunk + 1) * GRAIN);
+		for (int i = chunk * GRAIN; i < end; i++) {
+			int u = this.frontier[i];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (claim(v)) {
+					this.levels[v] = this.level + 1;
+					next.add(v);
+				}
+			}
+		}
+		return next;
+	}
+
+	private IntArrayList bottomUp(int chunk) {
+		int[] offsets = this.graph.inOffsets;
+		int[] sources = this.graph.inSources;
+		IntArrayList next = new IntArrayList();
+		int end = Math.min(this.graph.size(), (chunk + 1) * GRAIN);
+		for (int v = chunk * GRAIN; v < end; v++) {
+			if ((this.visited.get(v >>> 6) & (1L << v)) != 0) {
+				continue;
+			}
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				int u = sources[e];
+				if ((this.frontierBits[u >>> 6] & (1L << u)) != 0) {
+					claim(v);
+					this.levels[v] = this.level + 1;
+					next.add(v);
+					break;
+				}
+			}
+		}
+		return next;
+	}
+
+	private class Step extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int lo;
+		private int hi;
+
+		Step(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.hi - this.lo == 1) {
+				buffers[this.lo] = bottomUp ? bottomUp(this.lo) : topDown(this.lo);
+				return;
+			}
+			int mid = (this.lo + this.hi) >>> 1;
+			invokeAll(new Step(this.lo, mid), new Step(mid, this.hi));
+		}
+	}
+}
@@ -0,0 +1,404 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Adjacency list graph that interns every key to a dense int index once and
+ * keeps successors and predecessors in primitive int lists. Edge membership
+ * is answered by a hash map of packed (from, to) pairs instead of
+ * List.contains, so addEdge, hasEdge and removeEdge do not depend on degree
+ * for the lookup.
+ *
+ * Every edge also carries a double weight, stored in a list parallel to the
+ * successor list. The map holds each edge's position in that list, so
+ * weight lookups do not depend on degree either. Edges added without a
+ * weight weigh 1; addEdge with a weight gives an edge that is already there
+ * the new weight.
+ */
+public class PrimitiveAdjacencyListGraph<T> extends Graph<T> implements IndexedGraph<T> {
+	Map<T, Integer> keyToIndex;
+	List<T> indexToKey;
+	IntArrayList[] successors;
+	IntArrayList[] predecessors;
+	DoubleArrayList[] weights;
+	// position of each edge in its source's successor and weight lists
+	LongIntHashMap edges;
+	StronglyConnectedComponents<T> components;
+	ReachabilityIndex<T> reachability;
+	WeaklyConnectedComponents<T> weakComponents;
+	BreadthFirstSearch<T> search;
+	WeightedShortestPaths<T> weightedSearch;
+
+	PrimitiveAdjacencyListGraph(Set<T> keys) {
+		int size = keys.size();
+		this.keyToIndex = new HashMap<T, Integer>();
+		this.indexToKey = new ArrayList<T>(size);
+		this.successors = new IntArrayList[size];
+		this.predecessors = new IntArrayList[size];
+		this.weights = new DoubleArrayList[size];
+		this.edges = new LongIntHashMap();
+		int i = 0;
+		for (T key : keys) {
+			this.keyToIndex.put(key, i);
+			this.indexToKey.add(key);
+			this.successors[i] = new IntArrayList();
+			this.predecessors[i] = new IntArrayList();
+			this.weights[i] = new DoubleArrayList();
+			i++;
+		}
+	}
+
+	// used by GraphBuilder: edges holds count sorted, distinct packed edges
+	// between positions of keys, laid out here in a single pass
+	PrimitiveAdjacencyListGraph(List<T> keys, long[] edges, int count) {
+		int size = keys.size();
+		int[] outDegree = new int[size];
+		int[] inDegree = new int[size];
+		for (int e = 0; e < count; e++) {
+			outDegree[(int) (edges[e] >>> 32)]++;
+			inDegree[(int) edges[e]]++;
+		}
+		this.keyToIndex = new HashMap<T, Integer>(Math.max(size * 4 / 3, 16));
+		this.indexToKey = new ArrayList<T>(keys);
+		this.successors = new IntArrayList[size];
+		this.predecessors = new IntArrayList[size];
+		this.weights = new DoubleArrayList[size];
+		this.edges = new LongIntHashMap(count);
+		for (int i = 0; i < size; i++) {
+			this.keyToIndex.put(keys.get(i), i);
+			this.successors[i] = new IntArrayList(outDegree[i]);
+			this.predecessors[i] = new IntArrayList(inDegree[i]);
+			this.weights[i] = new DoubleArrayList(outDegree[i]);
+		}
+		for (int e = 0; e < count; e++) {
+			int f = (int) (edges[e] >>> 32);
+			this.edges.put(edges[e], this.successors[f].size());
+			link(f, (int) edges[e], 1.0);
+		}
+	}
+
+	public CsrGraph<T> freeze() {
+		return CsrGraph.of(this);
+	}
+
+	@Override
+	public int indexCapacity() {
+		return this.indexToKey.size();
+	}
+
+	@Override
+	public int indexOf(T key) {
+		Integer index = this.keyToIndex.get(key);
+		if (index == null) {
+			throw new NoSuchElementException();
+		}
+		return index;
+	}
+
+	@Override
+	public T keyAt(int index) {
+		return this.indexToKey.get(index);
+	}
+
+	@Override
+	public int outDegreeAt(int index) {
+		return this.successors[index].size();
+	}
+
+	@Override
+	public int inDegreeAt(int index) {
+		return this.predecessors[index].size();
+	}
+
+	@Override
+	public void forEachSuccessor(int index, IntConsumer action) {
+		IntArrayList succ = this.successors[index];
+		for (int i = 0; i < succ.size(); i++) {
+			action.accept(succ.get(i));
+		}
+	}
+
+	@Override
+	public void forEachPredecessor(int index, IntConsumer action) {
+		IntArrayList pred = this.predecessors[index];
+		for (int i = 0; i < pred.size(); i++) {
+			action.accept(pred.get(i));
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.keyToIndex.size();
+	}
+
+	@Override
+	public int numEdges() {
+		return this.edges.size();
+	}
+
+	// an edge that is already there keeps its weight
+	@Override
+	public boolean addEdge(T from, T to) {
+		return addEdge(from, to, 1.0, false);
+	}
+
+	// returns false if the edge was already there, after giving it the new
+	// weight in place
+	public boolean addEdge(T from, T to, double weight) {
+		return addEdge(from, to, weight, true);
+	}
+
+	private boolean addEdge(T from, T to, double weight, boolean reweigh) {
+		if (!(weight >= 0) || Double.isInfinite(weight)) {
+			throw new IllegalArgumentException();
+		}
+		int f = indexOf(from);
+		int t = indexOf(to);
+		int position = this.edges.putIfAbsent(LongIntHashMap.edge(f, t), this.successors[f].size());
+		if (position != LongIntHashMap.MISSING) {
+			if (reweigh) {
+				this.weights[f].set(position, weight);
+			}
+			return false;
+		}
+		link(f, t, weight);
+		this.components = null;
+		if (this.reachability != null && !this.reachability.addEdge(from, to)) {
+			this.reachability = null;
+		}
+		if (this.weakComponents != null) {
+			this.weakComponents.union(f, t);
+		}
+		return true;
+	}
+
+	// the caller has already put the edge in the map at the end of f's list
+	private void link(int f, int t, double weight) {
+		this.successors[f].add(t);
+		this.weights[f].add(weight);
+		this.predecessors[t].add(f);
+	}
+
+	// sorts and deduplicates the batch first, so each new edge costs one hash
+	// probe; returns how many edges were not already present
+	public int addEdges(Iterable<Edge<T>> edges) {
+		long[] buffer = new long[(edges instanceof Collection) ? Math.max(((Collection<?>) edges).size(), 1) : 16];
+		int count = 0;
+		for (Edge<T> edge : edges) {
+			if (count == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+			buffer[count++] = LongIntHashMap.edge(indexOf(edge.getFrom()), indexOf(edge.getTo()));
+		}
+		count = GraphBuilder.sortUnique(buffer, count);
+		int added = 0;
+		for (int e = 0; e < count; e++) {
+			int f = (int) (buffer[e] >>> 32);
+			if (this.edges.putIfAbsent(buffer[e], this.successors[f].size()) == LongIntHashMap.MISSING) {
+				link(f, (int) buffer[e], 1.0);
+				if (this.weakComponents != null) {
+					this.weakComponents.union(f, (int) buffer[e]);
+				}
+				added++;
+			}
+		}
+		if (added > 0) {
+			this.components = null;
+			this.reachability = null;
+		}
+		return added;
+	}
+
+	@Override
+	public boolean hasVertex(T key) {
+		return this.keyToIndex.containsKey(key);
+	}
+
+	@Override
+	public boolean hasEdge(T from, T to) throws NoSuchElementException {
+		return this.edges.containsKey(LongIntHashMap.edge(indexOf(from), indexOf(to)));
+	}
+
+	@Override
+	public boolean removeEdge(T from, T to) throws NoSuchElementException {
+		int f = indexOf(from);
+		int t = indexOf(to);
+		int position = this.edges.remove(LongIntHashMap.edge(f, t));
+		if (position == LongIntHashMap.MISSING) {
+			return false;
+		}
+		// the last successor moves into the gap, so only its position changes
+		int last = this.successors[f].size() - 1;
+		if (position < last) {
+			int moved = this.successors[f].get(last);
+			this.successors[f].set(position, moved);
+			this.weights[f].set(position, this.weights[f].get(last));
+			this.edges.put(LongIntHashMap.edge(f, moved), position);
+		}
+		this.successors[f].removeAt(last);
+		this.weights[f].removeAt(last);
+		this.predecessors[t].removeValue(f);
+		this.components = null;
+		this.reachability = null;
+		this.weakComponents = null;
+		return true;
+	}
+
+	public double weight(T from, T to) throws NoSuchElementException {
+		int f = indexOf(from);
+		int position = this.edges.get(LongIntHashMap.edge(f, indexOf(to)));
+		if (position == LongIntHashMap.MISSING) {
+			throw new NoSuchElementException();
+		}
+		return this.weights[f].get(position);
+	}
+
+	@Override
+	public int outDegree(T key) {
+		return this.successors[indexOf(key)].size();
+	}
+
+	@Override
+	public int inDegree(T key) {
+		return this.predecessors[indexOf(key)].size();
+	}
+
+	@Override
+	public Set<T> keySet() {
+		return this.keyToIndex.keySet();
+	}
+
+	@Override
+	public Set<T> successorSet(T key) {
+		return toKeySet(this.successors[indexOf(key)]);
+	}
+
+	@Override
+	public Set<T> predecessorSet(T key) {
+		return toKeySet(this.predecessors[indexOf(key)]);
+	}
+
+	private Set<T> toKeySet(IntArrayList list) {
+		Set<T> set = new HashSet<T>();
+		for (int i = 0; i < list.size(); i++) {
+			set.add(this.indexToKey.get(list.get(i)));
+		}
+		return set;
+	}
+
+	@Override
+	public Iterator<T> successorIterator(T key) {
+		return new NeighborIterator(this.successors[indexOf(key)]);
+	}
+
+	@Override
+	public Iterator<T> predecessorIterator(T key) {
+		return new NeighborIterator(this.predecessors[indexOf(key)]);
+	}
+
+	@Override
+	public Set<T> stronglyConnectedComponent(T key) {
+		return components().component(key);
+	}
+
+	public List<Set<T>> stronglyConnectedComponents() {
+		return components().components();
+	}
+
+	private StronglyConnectedComponents<T> components() {
+		if (this.components == null) {
+			this.components = new StronglyConnectedComponents<T>(this);
+		}
+		return this.components;
+	}
+
+	// sorts a snapshot of the graph; later edits are not reflected
+	public TopologicalSort<T> topologicalSort() {
+		return new TopologicalSort<T>(this);
+	}
+
+	// builds the index on first use; addEdge keeps it current and any other
+	// change drops it until the next query
+	public boolean canReach(T from, T to) {
+		if (this.reachability == null) {
+			this.reachability = new ReachabilityIndex<T>(this, components());
+		}
+		return this.reachability.canReach(from, to);
+	}
+
+	// built on first use, then kept current by addEdge and addEdges;
+	// removeEdge drops it until the next query
+	public boolean weaklyConnected(T a, T b) {
+		return weakComponents().connected(a, b);
+	}
+
+	public List<Set<T>> weaklyConnectedComponents() {
+		return weakComponents().components();
+	}
+
+	private WeaklyConnectedComponents<T> weakComponents() {
+		if (this.weakComponents == null) {
+			this.weakComponents = new WeaklyConnectedComponents<T>(this);
+		}
+		return this.weakComponents;
+	}
+
+	@Override
+	public List<T> shortestPath(T startLabel, T endLabel) {
+		int start = indexOf(startLabel);
+		int end = indexOf(endLabel);
+		if (this.search == null) {
+			this.search = new BreadthFirstSearch<T>(this);
+		}
+		return this.search.shortestPath(start, end);
+	}
+
+	public List<T> dijkstra(T startLabel, T endLabel) {
+		return weightedSearch().dijkstra(indexOf(startLabel), indexOf(endLabel));
+	}
+
+	public List<T> aStar(T startLabel, T endLabel, ToDoubleFunction<? super T> heuristic) {
+		return weightedSearch().aStar(indexOf(startLabel), indexOf(endLabel), heuristic);
+	}
+
+	private WeightedShortestPaths<T> weightedSearch() {
+		if (this.weightedSearch == null) {
+			this.weightedSearch = new WeightedShortestPaths<T>(this);
+		}
+		return this.weightedSearch;
+	}
+
+	private class NeighborIterator implements Iterator<T> {
+		private IntArrayList list;
+		private int index;
+
+		NeighborIterator(IntArrayList list) {
+			this.list = list;
+			this.index = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.index < this.list.size();
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return indexToKey.get(this.list.get(this.index++));
+		}
+	}
+}
@@ -0,0 +1,257 @@
+package graphs;
+
+import java.util.Arrays;
+
+/**
+ * Transitive closure over the condensation of a strongly connected component
+ * decomposition. Each component keeps the ids it reaches as a sorted list of
+ * disjoint [lo, hi] intervals. Component ids are in reverse topological
+ * order and Tarjan numbers the components below one DFS subtree
+ * consecutively, so a row usually collapses into a few intervals. Answering
+ * a reachability query is a binary search over one row, O(log k) for a row
+ * of k intervals rather than O(1); k stays small when the condensation is
+ * close to a tree and grows towards the number of components when it is
+ * not.
+ *
+ * The rows together may hold at most LIMIT_PER_ELEMENT ints for every vertex
+ * and edge of the graph, plus MIN_LIMIT. If the build or a later addEdge
+ * would go over that, the rows are dropped and canReach falls back to the
+ * graph's own shortestPath, O(V + E) per query, so memory stays linear in
+ * the size of the graph.
+ *
+ * addEdge keeps the rows up to date unless the new edge closes a cycle
+ * between components. In that case it returns false and the index must be
+ * rebuilt.
+ */
+class ReachabilityIndex<T> {
+	static final int LIMIT_PER_ELEMENT = 16;
+	static final int MIN_LIMIT = 1 << 20;
+
+	private Graph<T> graph;
+	private StronglyConnectedComponents<T> components;
+	private int[][] reach;
+	private long used;
+	private long limit;
+
+	// predecessor components, built on the first addEdge
+	private int[][] predecessors;
+	private int[] predecessorCount;
+	private int[] seen;
+	private int epoch;
+
+	// merge buffers
+	private int[] buffer;
+	private int[] spare;
+
+	// graph is the owning graph. The fallback asks it for a path, so it sees
+	// edges added after the decomposition was taken and reuses the graph's
+	// search buffers instead of allocating its own on every query
+	ReachabilityIndex(Graph<T> graph, StronglyConnectedComponents<T> components) {
+		this.graph = graph;
+		this.components = components;
+		CsrGraph<T> snapshot = components.graph;
+		this.limit = Math.max(MIN_LIMIT,
+				LIMIT_PER_ELEMENT * ((long) snapshot.indexCapacity() + snapshot.outTargets.length));
+		this.buffer = new int[16];
+		this.spare = new int[16];
+		build();
+		this.buffer = null;
+		this.spare = null;
+	}
+
+	// fills rows in id order; every edge out of a component leads to a lower
+	// id, whose row is already complete
+	private void build() {
+		CsrGraph<T> graph = this.components.graph;
+		int[] componentOf = this.components.componentOf;
+		int count = this.components.count;
+		int n = componentOf.length;
+		int[] start = new int[count + 1];
+		for (int v = 0; v < n; v++) {
+			start[componentOf[v] + 1]++;
+		}
+		for (int c = 0; c < count; c++) {
+			start[c + 1] += start[c];
+		}
+		int[] members = new int[n];
+		int[] fill = Arrays.copyOf(start, count);
+		for (int v = 0; v < n; v++) {
+			members[fill[componentOf[v]]++] = v;
+		}
+		this.reach = new int[count][];
+		for (int c = 0; c < count; c++) {
+			int length = 2;
+			this.buffer[0] = c;
+			this.buffer[1] = c;
+			for (int i = start[c]; i < start[c + 1]; i++) {
+				int u = members[i];
+				for (int e = graph.outOffsets[u]; e < graph.outOffsets[u + 1]; e++) {
+					int d = componentOf[graph.outTargets[e]];
+					// a row that holds d already holds everything d reaches
+					if (d != c && !contains(this.buffer, length, d)) {
+						length = merge(length, this.reach[d]);
+					}
+				}
+			}
+			this.used += length;
+			if (this.used > this.limit) {
+				this.reach = null;
+				return;
+			}
+			this.reach[c] = Arrays.copyOf(this.buffer, length);
+		}
+	}
+
+	// false once the rows went over the size limit and queries search the
+	// graph instead
+	boolean isComplete() {
+		return this.reach != null;
+	}
+
+	boolean canReach(T from, T to) {
+		if (this.reach == null) {
+			return this.graph.shortestPath(from, to) != null;
+		}
+		int[] row = this.reach[this.components.componentOf(from)];
+		return contains(row, row.length, this.components.componentOf(to));
+	}
+
+	// every component that reaches the source now also reaches everything
+	// the target does. Those components are found by walking predecessors
+	// back from the source, stopping at any that already reach the target.
+	boolean addEdge(T from, T to) {
+		if (this.reach == null) {
+			return true;
+		}
+		int a = this.components.componentOf(from);
+		int b = this.components.componentOf(to);
+		if (contains(this.reach[a], this.reach[a].length, b)) {
+			return true;
+		}
+		if (contains(this.reach[b], this.reach[b].length, a)) {
+			return false;
+		}
+		if (this.predecessors == null) {
+			linkPredecessors();
+		}
+		addPredecessor(b, a);
+		this.buffer = new int[16];
+		this.spare = new int[16];
+		if (++this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.seen, 0);
+			this.epoch = 1;
+		}
+		int[] added = this.reach[b];
+		int[] queue = new int[16];
+		int tail = 0;
+		queue[tail++] = a;
+		this.seen[a] = this.epoch;
+		for (int head = 0; head < tail; head++) {
+			int c = queue[head];
+			int[] row = this.reach[c];
+			if (this.buffer.length < row.length) {
+				this.buffer = new int[row.length];
+			}
+			System.arraycopy(row, 0, this.buffer, 0, row.length);
+			int length = merge(row.length, added);
+			this.used += length - row.length;
+			if (this.used > this.limit) {
+				this.reach = null;
+				this.predecessors = null;
+				break;
+			}
+			this.reach[c] = Arrays.copyOf(this.buffer, length);
+			for (int i = 0; i < this.predecessorCount[c]; i++) {
+				int p = this.predecessors[c][i];
+				if (this.seen[p] != this.epoch && !contains(this.reach[p], this.reach[p].length, b)) {
+					this.seen[p] = this.epoch;
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, tail * 2);
+					}
+					queue[tail++] = p;
+				}
+			}
+		}
+		this.buffer = null;
+		this.spare = null;
+		return true;
+	}
+
+	private void linkPredecessors() {
+		CsrGraph<T> graph = this.components.graph;
+		int[] componentOf = this.components.componentOf;
+		int count = this.components.count;
+		this.predecessors = new int[count][];
+		this.predecessorCount = new int[count];
+		this.seen = new int[count];
+		for (int u = 0; u < componentOf.length; u++) {
+			for (int e = graph.outOffsets[u]; e < graph.outOffsets[u + 1]; e++) {
+				int d = componentOf[graph.outTargets[e]];
+				if (d != componentOf[u]) {
+					addPredecessor(d, componentOf[u]);
+				}
+			}
+		}
+	}
+
+	private void addPredecessor(int c, int p) {
+		int[] list = this.predecessors[c];
+		int count = this.predecessorCount[c];
+		if (list == null) {
+			list = this.predecessors[c] = new int[2];
+		} else if (count == list.length) {
+			list = this.predecessors[c] = Arrays.copyOf(list, count * 2);
+		}
+		list[count] = p;
+		this.predecessorCount[c] = count + 1;
+	}
+
+	// unions the first length ints of buffer with row, leaving the result in
+	// buffer and returning its length; touching intervals are joined
+	private int merge(int length, int[] row) {
+		if (this.spare.length < length + row.length) {
+			this.spare = new int[Math.max(length + row.length, this.spare.length * 2)];
+		}
+		int[] out = this.spare;
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < length || j < row.length) {
+			int lo;
+			int hi;
+			if (j == row.length || (i < length && this.buffer[i] <= row[j])) {
+				lo = this.buffer[i];
+				hi = this.buffer[i + 1];
+				i += 2;
+			} else {
+				lo = row[j];
+				hi = row[j + 1];
+				j += 2;
+			}
+			if (size > 0 && lo <= out[size - 1] + 1) {
+				out[size - 1] = Math.max(out[size - 1], hi);
+			} else {
+				out[size++] = lo;
+				out[size++] = hi;
+			}
+		}
+		this.spare = this.buffer;
+		this.buffer = out;
+		return size;
+	}
+
+	// binary search for the last interval starting at or below id
+	private static boolean contains(int[] row, int length, int id) {
+		int lo = 0;
+		int hi = length / 2 - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (row[2 * mid] <= id) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return hi >= 0 && id <= row[2 * hi + 1];
+	}
+}
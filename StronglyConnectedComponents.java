@@ -0,0 +1,117 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Full strongly connected component decomposition, computed once with an
+ * iterative Tarjan search in O(V + E). Components are numbered in reverse
+ * topological order of the condensation: every edge between two different
+ * components goes from a higher id to a lower one.
+ */
+class StronglyConnectedComponents<T> {
+	CsrGraph<T> graph;
+	int[] componentOf;
+	int count;
+	private List<Set<T>> components;
+
+	StronglyConnectedComponents(IndexedGraph<T> source) {
+		this.graph = (source instanceof CsrGraph) ? (CsrGraph<T>) source : CsrGraph.of(source);
+		decompose();
+	}
+
+	int componentOf(T key) {
+		return this.componentOf[this.graph.indexOf(key)];
+	}
+
+	Set<T> component(T key) {
+		if (!this.graph.hasVertex(key)) {
+			throw new NoSuchElementException();
+		}
+		return components().get(componentOf(key));
+	}
+
+	// synchronized because a decomposition cached on an immutable graph can be
+	// queried from several threads
+	synchronized List<Set<T>> components() {
+		if (this.components == null) {
+			List<Set<T>> sets = new ArrayList<Set<T>>(this.count);
+			for (int c = 0; c < this.count; c++) {
+				sets.add(new HashSet<T>());
+			}
+			for (int i = 0; i < this.componentOf.length; i++) {
+				sets.get(this.componentOf[i]).add(this.graph.keyAt(i));
+			}
+			for (int c = 0; c < this.count; c++) {
+				sets.set(c, Collections.unmodifiableSet(sets.get(c)));
+			}
+			this.components = Collections.unmodifiableList(sets);
+		}
+		return this.components;
+	}
+
+	private void decompose() {
+		int n = this.graph.size();
+		int[] offsets = this.graph.outOffsets;
+		int[] targets = this.graph.outTargets;
+		int[] order = new int[n];
+		int[] low = new int[n];
+		int[] nextEdge = new int[n];
+		int[] callStack = new int[n];
+		int[] sccStack = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(order, -1);
+		this.componentOf = new int[n];
+		this.count = 0;
+		int counter = 0;
+		int sccTop = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] >= 0) {
+				continue;
+			}
+			int callTop = 0;
+			order[root] = low[root] = counter++;
+			nextEdge[root] = offsets[root];
+			callStack[callTop++] = root;
+			sccStack[sccTop++] = root;
+			onStack[root] = true;
+			while (callTop > 0) {
+				int u = callStack[callTop - 1];
+				if (nextEdge[u] < offsets[u + 1]) {
+					int v = targets[nextEdge[u]++];
+					if (order[v] < 0) {
+						order[v] = low[v] = counter++;
+						nextEdge[v] = offsets[v];
+						callStack[callTop++] = v;
+						sccStack[sccTop++] = v;
+						onStack[v] = true;
+					} else if (onStack[v] && order[v] < low[u]) {
+						low[u] = order[v];
+					}
+					continue;
+				}
+				callTop--;
+				if (low[u] == order[u]) {
+					int v;
+					do {
+						v = sccStack[--sccTop];
+						onStack[v] = false;
+						this.componentOf[v] = this.count;
+					} while (v != u);
+					this.count++;
+				}
+				if (callTop > 0) {
+					int parent = callStack[callTop - 1];
+					if (low[u] < low[parent]) {
+						low[parent] = low[u];
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Kahn topological sort of a CSR snapshot taken when the sort is created,
+ * so later edits to the graph are not seen. If the graph has a cycle,
+ * cycle() reports one and the path queries throw IllegalStateException. On
+ * a DAG, longest and shortest paths and the critical path are one pass over
+ * the order, so every query is O(V + E). Not thread safe.
+ */
+public class TopologicalSort<T> {
+	private CsrGraph<T> graph;
+	private int[] order;
+	private List<T> cycle;
+
+	// scratch state for the path passes, shared with relax
+	private double[] best;
+	private int[] parent;
+	private double[] weight;
+	private boolean longest;
+	private int current;
+	private final IntConsumer relax;
+
+	TopologicalSort(IndexedGraph<T> source) {
+		this.graph = (source instanceof CsrGraph) ? (CsrGraph<T>) source : CsrGraph.of(source);
+		this.relax = v -> {
+			if (this.best[this.current] != Double.NEGATIVE_INFINITY) {
+				double d = this.best[this.current] + this.weight[v];
+				boolean better = (this.longest) ? d > this.best[v] : d < this.best[v];
+				if (this.best[v] == Double.NEGATIVE_INFINITY || better) {
+					this.best[v] = d;
+					this.parent[v] = this.current;
+				}
+			}
+		};
+		sort();
+	}
+
+	private void sort() {
+		int capacity = this.graph.indexCapacity();
+		int[] inDegree = new int[capacity];
+		int[] queue = new int[capacity];
+		int live = 0;
+		int tail = 0;
+		for (int i = 0; i < capacity; i++) {
+			if (this.graph.keyAt(i) != null) {
+				live++;
+				inDegree[i] = this.graph.inDegreeAt(i);
+				if (inDegree[i] == 0) {
+					queue[tail++] = i;
+				}
+			}
+		}
+		int[] tailRef = { tail };
+		for (int head = 0; head < tailRef[0]; head++) {
+			this.graph.forEachSuccessor(queue[head], v -> {
+				if (--inDegree[v] == 0) {
+					queue[tailRef[0]++] = v;
+				}
+			});
+		}
+		this.order = Arrays.copyOf(queue, tailRef[0]);
+		if (this.order.length < live) {
+			this.cycle = findCycle(inDegree);
+		}
+	}
+
+	// every vertex left with a positive in-degree has a predecessor that was
+	// also left over, so walking predecessors must eventually repeat
+	private List<T> findCycle(int[] inDegree) {
+		int capacity = this.graph.indexCapacity();
+		int[] step = new int[capacity];
+		Arrays.fill(step, -1);
+		int[] walk = new int[capacity];
+		int[] next = { -1 };
+		int v = 0;
+		while (this.graph.keyAt(v) == null || inDegree[v] == 0) {
+			v++;
+		}
+		int length = 0;
+		while (step[v] < 0) {
+			step[v] = length;
+			walk[length++] = v;
+			next[0] = -1;
+			this.graph.forEachPredecessor(v, p -> {
+				if (next[0] < 0 && inDegree[p] > 0) {
+					next[0] = p;
+				}
+			});
+			v = next[0];
+		}
+		List<T> cycle = new ArrayList<T>();
+		for (int i = length - 1; i >= step[v]; i--) {
+			cycle.add(this.graph.keyAt(walk[i]));
+		}
+		return cycle;
+	}
+
+	public boolean isAcyclic() {
+		return this.cycle == null;
+	}
+
+	// the vertices of one cycle in edge order, with an edge from the last
+	// back to the first; null if the graph is acyclic
+	public List<T> cycle() {
+		return this.cycle;
+	}
+
+	public List<T> order() {
+		checkAcyclic();
+		List<T> keys = new ArrayList<T>(this.order.length);
+		for (int index : this.order) {
+			keys.add(this.graph.keyAt(index));
+		}
+		return keys;
+	}
+
+	// paths below are measured in edges; null when end is not reachable
+	public List<T> longestPath(T startLabel, T endLabel) {
+		return path(startLabel, endLabel, true);
+	}
+
+	public List<T> shortestPath(T startLabel, T endLabel) {
+		return path(startLabel, endLabel, false);
+	}
+
+	// the path whose vertices have the largest total duration, the chain of
+	// jobs that bounds how soon all jobs can finish
+	public List<T> criticalPath(ToDoubleFunction<? super T> duration) {
+		checkAcyclic();
+		int capacity = this.graph.indexCapacity();
+		prepare(true);
+		for (int index : this.order) {
+			this.weight[index] = duration.applyAsDouble(this.graph.keyAt(index));
+			this.best[index] = this.weight[index];
+		}
+		for (int index : this.order) {
+			this.current = index;
+			this.graph.forEachSuccessor(index, this.relax);
+		}
+		int end = -1;
+		for (int i = 0; i < capacity; i++) {
+			if (this.graph.keyAt(i) != null && (end < 0 || this.best[i] > this.best[end])) {
+				end = i;
+			}
+		}
+		return (end < 0) ? new ArrayList<T>() : pathTo(end);
+	}
+
+	private List<T> path(T startLabel, T endLabel, boolean longest) {
+		checkAcyclic();
+		int start = this.graph.indexOf(startLabel);
+		int end = this.graph.indexOf(endLabel);
+		prepare(longest);
+		Arrays.fill(this.weight, 1);
+		this.best[start] = 0;
+		boolean started = false;
+		for (int index : this.order) {
+			started |= index == start;
+			if (started) {
+				this.current = index;
+				this.graph.forEachSuccessor(index, this.relax);
+			}
+			if (index == end) {
+				break;
+			}
+		}
+		return (this.best[end] == Double.NEGATIVE_INFINITY) ? null : pathTo(end);
+	}
+
+	private void prepare(boolean longest) {
+		int capacity = this.graph.indexCapacity();
+		this.longest = longest;
+		this.best = new double[capacity];
+		this.parent = new int[capacity];
+		this.weight = new double[capacity];
+		Arrays.fill(this.best, Double.NEGATIVE_INFINITY);
+		Arrays.fill(this.parent, -1);
+	}
+
+	private List<T> pathTo(int end) {
+		List<T> path = new ArrayList<T>();
+		for (int v = end; v >= 0; v = this.parent[v]) {
+			path.add(this.graph.keyAt(v));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	private void checkAcyclic() {
+		if (this.cycle != null) {
+			throw new IllegalStateException("graph has a cycle: " + this.cycle);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Weakly connected components kept in an int[] union-find with path
+ * compression and union by rank. The constructor unions every edge once;
+ * after that union and grow keep it current as edges and vertices are added,
+ * so connected answers in near constant time during ingestion. Removing an
+ * edge can split a component, which a union-find cannot undo, so the owning
+ * graph drops it then.
+ */
+class WeaklyConnectedComponents<T> {
+	private IndexedGraph<T> graph;
+	private int[] parent;
+	private byte[] rank;
+
+	WeaklyConnectedComponents(IndexedGraph<T> graph) {
+		this.graph = graph;
+		this.parent = new int[0];
+		this.rank = new byte[0];
+		grow(graph.indexCapacity());
+		for (int u = 0; u < graph.indexCapacity(); u++) {
+			if (graph.keyAt(u) != null) {
+				int from = u;
+				graph.forEachSuccessor(u, v -> union(from, v));
+			}
+		}
+	}
+
+	// indices from the old capacity up start out as singletons
+	void grow(int capacity) {
+		int old = this.parent.length;
+		if (capacity <= old) {
+			return;
+		}
+		int[] parent = new int[Math.max(capacity, old * 2)];
+		System.arraycopy(this.parent, 0, parent, 0, old);
+		for (int i = old; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		byte[] rank = new byte[parent.length];
+		System.arraycopy(this.rank, 0, rank, 0, old);
+		this.parent = parent;
+		this.rank = rank;
+	}
+
+	int find(int index) {
+		int root = index;
+		while (this.parent[root] != root) {
+			root = this.parent[root];
+		}
+		while (this.parent[index] != root) {
+			int next = this.parent[index];
+			this.parent[index] = root;
+			index = next;
+		}
+		return root;
+	}
+
+	// points every index straight at its root, so find stops writing and
+	// the structure can be read from several threads until the next union
+	void flatten() {
+		for (int i = 0; i < this.parent.length; i++) {
+			find(i);
+		}
+	}
+
+	boolean union(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb) {
+			return false;
+		}
+		if (this.rank[ra] < this.rank[rb]) {
+			this.parent[ra] = rb;
+		} else if (this.rank[ra] > this.rank[rb]) {
+			this.parent[rb] = ra;
+		} else {
+			this.parent[rb] = ra;
+			this.rank[ra]++;
+		}
+		return true;
+	}
+
+	boolean connected(T a, T b) {
+		return find(this.graph.indexOf(a)) == find(this.graph.indexOf(b));
+	}
+
+	List<Set<T>> components() {
+		int capacity = this.graph.indexCapacity();
+		int[] slot = new int[capacity];
+		List<Set<T>> sets = new ArrayList<Set<T>>();
+		for (int i = 0; i < capacity; i++) {
+			if (this.graph.keyAt(i) != null && find(i) == i) {
+				slot[i] = sets.size();
+				sets.add(new HashSet<T>());
+			}
+		}
+		for (int i = 0; i < capacity; i++) {
+			T key = this.graph.keyAt(i);
+			if (key != null) {
+				sets.get(slot[find(i)]).add(key);
+			}
+		}
+		for (int c = 0; c < sets.size(); c++) {
+			sets.set(c, Collections.unmodifiableSet(sets.get(c)));
+		}
+		return Collections.unmodifiableList(sets);
+	}
+}
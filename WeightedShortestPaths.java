@@ -0,0 +1,106 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Dijkstra and A* over the weighted successor lists of a
+ * PrimitiveAdjacencyListGraph, driven by an IndexedPriorityQueue. Distance
+ * and parent arrays are reused between queries and stamped with a query
+ * number instead of being cleared. Not thread safe.
+ */
+class WeightedShortestPaths<T> {
+	private PrimitiveAdjacencyListGraph<T> graph;
+	private IndexedPriorityQueue open;
+	private double[] distance;
+	private double[] estimate;
+	private int[] parent;
+	private int[] seen;
+	private int epoch;
+
+	WeightedShortestPaths(PrimitiveAdjacencyListGraph<T> graph) {
+		this.graph = graph;
+		this.open = new IndexedPriorityQueue(0);
+		this.distance = new double[0];
+		this.estimate = new double[0];
+		this.parent = new int[0];
+		this.seen = new int[0];
+		this.epoch = 0;
+	}
+
+	List<T> dijkstra(int start, int end) {
+		return search(start, end, null);
+	}
+
+	// the heuristic must never overestimate the remaining weight to end, or
+	// the returned path may not be the cheapest
+	List<T> aStar(int start, int end, ToDoubleFunction<? super T> heuristic) {
+		return search(start, end, heuristic);
+	}
+
+	private List<T> search(int start, int end, ToDoubleFunction<? super T> heuristic) {
+		begin();
+		visit(start, start, 0, heuristic);
+		while (!this.open.isEmpty()) {
+			int u = this.open.poll();
+			if (u == end) {
+				return pathTo(start, end);
+			}
+			IntArrayList succ = this.graph.successors[u];
+			DoubleArrayList weights = this.graph.weights[u];
+			for (int i = 0; i < succ.size(); i++) {
+				int v = succ.get(i);
+				double d = this.distance[u] + weights.get(i);
+				if (this.seen[v] != this.epoch || d < this.distance[v]) {
+					visit(v, u, d, heuristic);
+				}
+			}
+		}
+		return null;
+	}
+
+	private void visit(int v, int from, double d, ToDoubleFunction<? super T> heuristic) {
+		if (this.seen[v] != this.epoch) {
+			this.seen[v] = this.epoch;
+			this.estimate[v] = (heuristic == null) ? 0 : heuristic.applyAsDouble(this.graph.keyAt(v));
+		}
+		this.distance[v] = d;
+		this.parent[v] = from;
+		if (this.open.contains(v)) {
+			this.open.decreaseKey(v, d + this.estimate[v]);
+		} else {
+			this.open.add(v, d + this.estimate[v]);
+		}
+	}
+
+	private void begin() {
+		int capacity = this.graph.indexCapacity();
+		if (this.seen.length < capacity) {
+			this.open = new IndexedPriorityQueue(capacity);
+			this.distance = new double[capacity];
+			this.estimate = new double[capacity];
+			this.parent = new int[capacity];
+			this.seen = new int[capacity];
+			this.epoch = 0;
+		}
+		if (this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.seen, 0);
+			this.epoch = 0;
+		}
+		this.epoch++;
+		this.open.clear();
+	}
+
+	private List<T> pathTo(int start, int end) {
+		ArrayList<T> path = new ArrayList<T>();
+		for (int v = end; v != start; v = this.parent[v]) {
+			path.add(this.graph.keyAt(v));
+		}
+		path.add(this.graph.keyAt(start));
+		Collections.reverse(path);
+		return path;
+	}
+}
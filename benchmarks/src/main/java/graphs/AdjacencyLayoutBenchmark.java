@@ -0,0 +1,99 @@
+package graphs;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the Vertex-list layout of AdjacencyListGraph with the int-indexed
+ * layout of PrimitiveAdjacencyListGraph on edge insertion and lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdjacencyLayoutBenchmark {
+	@Param({ "1000", "10000" })
+	int vertices;
+
+	@Param({ "8", "64" })
+	int degree;
+
+	Set<Integer> keys;
+	int[] from;
+	int[] to;
+	AdjacencyListGraph<Integer> listGraph;
+	PrimitiveAdjacencyListGraph<Integer> primitiveGraph;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		this.keys = new HashSet<Integer>();
+		for (int i = 0; i < this.vertices; i++) {
+			this.keys.add(i);
+		}
+		int edges = this.vertices * this.degree;
+		this.from = new int[edges];
+		this.to = new int[edges];
+		for (int i = 0; i < edges; i++) {
+			this.from[i] = random.nextInt(this.vertices);
+			this.to[i] = random.nextInt(this.vertices);
+		}
+		this.listGraph = new AdjacencyListGraph<Integer>(this.keys);
+		this.primitiveGraph = new PrimitiveAdjacencyListGraph<Integer>(this.keys);
+		for (int i = 0; i < edges; i++) {
+			this.listGraph.addEdge(this.from[i], this.to[i]);
+			this.primitiveGraph.addEdge(this.from[i], this.to[i]);
+		}
+	}
+
+	@Benchmark
+	public Graph<Integer> buildVertexList() {
+		AdjacencyListGraph<Integer> g = new AdjacencyListGraph<Integer>(this.keys);
+		for (int i = 0; i < this.from.length; i++) {
+			g.addEdge(this.from[i], this.to[i]);
+		}
+		return g;
+	}
+
+	@Benchmark
+	public Graph<Integer> buildPrimitive() {
+		PrimitiveAdjacencyListGraph<Integer> g = new PrimitiveAdjacencyListGraph<Integer>(this.keys);
+		for (int i = 0; i < this.from.length; i++) {
+			g.addEdge(this.from[i], this.to[i]);
+		}
+		return g;
+	}
+
+	@Benchmark
+	public int hasEdgeVertexList() {
+		int found = 0;
+		for (int i = 0; i < this.from.length; i++) {
+			if (this.listGraph.hasEdge(this.to[i], this.from[i])) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int hasEdgePrimitive() {
+		int found = 0;
+		for (int i = 0; i < this.from.length; i++) {
+			if (this.primitiveGraph.hasEdge(this.to[i], this.from[i])) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
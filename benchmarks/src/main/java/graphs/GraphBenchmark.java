@@ -0,0 +1,181 @@
+package graphs;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Every Graph operation on AdjacencyListGraph and AdjacencyMatrixGraph, over
+ * the same edge sequence. Edges are uniformly random, sorted by source, or
+ * adversarial: every edge leaves one of a few hub vertices, so the hubs'
+ * neighbor lists grow to the full vertex count. Each benchmark covers the
+ * whole edge sequence or every vertex, not one call.
+ *
+ * benchmarks/pom.xml runs JMH with -prof gc, so allocation per operation is
+ * reported next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GraphBenchmark {
+	@Param({ "list", "matrix" })
+	String layout;
+
+	@Param({ "1000", "10000" })
+	int vertices;
+
+	@Param({ "4", "32" })
+	int degree;
+
+	@Param({ "RANDOM", "SORTED", "ADVERSARIAL" })
+	String distribution;
+
+	Set<Integer> keys;
+	int[] from;
+	int[] to;
+	Graph<Integer> graph;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		this.keys = new HashSet<Integer>();
+		for (int i = 0; i < this.vertices; i++) {
+			this.keys.add(i);
+		}
+		int edges = this.vertices * this.degree;
+		this.from = new int[edges];
+		this.to = new int[edges];
+		for (int i = 0; i < edges; i++) {
+			switch (this.distribution) {
+			case "SORTED":
+				this.from[i] = i / this.degree;
+				this.to[i] = (this.from[i] + 1 + i % this.degree) % this.vertices;
+				break;
+			case "ADVERSARIAL":
+				this.from[i] = random.nextInt(this.degree);
+				this.to[i] = random.nextInt(this.vertices);
+				break;
+			default:
+				this.from[i] = random.nextInt(this.vertices);
+				this.to[i] = random.nextInt(this.vertices);
+			}
+		}
+		this.graph = build();
+	}
+
+	private Graph<Integer> build() {
+		Graph<Integer> g = ("matrix".equals(this.layout))
+				? new AdjacencyMatrixGraph<Integer>(this.keys)
+				: new AdjacencyListGraph<Integer>(this.keys);
+		for (int i = 0; i < this.from.length; i++) {
+			g.addEdge(this.from[i], this.to[i]);
+		}
+		return g;
+	}
+
+	@Benchmark
+	public Graph<Integer> addEdge() {
+		return build();
+	}
+
+	@Benchmark
+	public int hasEdge() {
+		int found = 0;
+		for (int i = 0; i < this.from.length; i++) {
+			if (this.graph.hasEdge(this.to[i], this.from[i])) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	// removes every edge and adds it back, so the graph is unchanged afterwards
+	@Benchmark
+	public int removeEdge() {
+		int removed = 0;
+		for (int i = 0; i < this.from.length; i++) {
+			if (this.graph.removeEdge(this.from[i], this.to[i])) {
+				removed++;
+				this.graph.addEdge(this.from[i], this.to[i]);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public int hasVertex() {
+		int found = 0;
+		for (int i = 0; i < this.vertices * 2; i++) {
+			if (this.graph.hasVertex(i)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public long degrees() {
+		long sum = this.graph.size() + this.graph.numEdges();
+		for (int i = 0; i < this.vertices; i++) {
+			sum += this.graph.outDegree(i) + this.graph.inDegree(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void keySet(Blackhole blackhole) {
+		for (Integer key : this.graph.keySet()) {
+			blackhole.consume(key);
+		}
+	}
+
+	@Benchmark
+	public void neighborSets(Blackhole blackhole) {
+		for (int i = 0; i < this.vertices; i++) {
+			blackhole.consume(this.graph.successorSet(i));
+			blackhole.consume(this.graph.predecessorSet(i));
+		}
+	}
+
+	@Benchmark
+	public void neighborIterators(Blackhole blackhole) {
+		for (int i = 0; i < this.vertices; i++) {
+			Iterator<Integer> it = this.graph.successorIterator(i);
+			while (it.hasNext()) {
+				blackhole.consume(it.next());
+			}
+			it = this.graph.predecessorIterator(i);
+			while (it.hasNext()) {
+				blackhole.consume(it.next());
+			}
+		}
+	}
+
+	// edits the graph first, so the decomposition is not served from cache
+	@Benchmark
+	public Set<Integer> stronglyConnectedComponent() {
+		this.graph.removeEdge(this.from[0], this.to[0]);
+		this.graph.addEdge(this.from[0], this.to[0]);
+		return this.graph.stronglyConnectedComponent(this.from[0]);
+	}
+
+	@Benchmark
+	public void shortestPath(Blackhole blackhole) {
+		for (int i = 0; i < 100; i++) {
+			blackhole.consume(this.graph.shortestPath(this.from[i], this.to[this.to.length - 1 - i]));
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package trees;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Every public BinarySearchTree operation over keys inserted in random
+ * order, in sorted order, or zigzagging between the smallest and largest
+ * remaining key. The last two build a tree that is a single path unless
+ * balanced is true.
+ *
+ * benchmarks/pom.xml runs JMH with -prof gc, so allocation per operation is
+ * reported next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinarySearchTreeBenchmark {
+	@Param({ "1000", "10000" })
+	int size;
+
+	@Param({ "RANDOM", "SORTED", "ADVERSARIAL" })
+	String distribution;
+
+	@Param({ "false", "true" })
+	boolean balanced;
+
+	Integer[] keys;
+	Integer[] probes;
+	BinarySearchTree<Integer> tree;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < this.size; i++) {
+			order.add(2 * i);
+		}
+		if ("RANDOM".equals(this.distribution)) {
+			Collections.shuffle(order, new Random(42));
+		} else if ("ADVERSARIAL".equals(this.distribution)) {
+			List<Integer> zigzag = new ArrayList<Integer>();
+			for (int lo = 0, hi = this.size - 1; lo <= hi; lo++, hi--) {
+				zigzag.add(order.get(lo));
+				if (lo != hi) {
+					zigzag.add(order.get(hi));
+				}
+			}
+			order = zigzag;
+		}
+		this.keys = order.toArray(new Integer[0]);
+		// half hits, half misses between stored keys
+		this.probes = new Integer[this.size];
+		Random random = new Random(7);
+		for (int i = 0; i < this.size; i++) {
+			this.probes[i] = random.nextInt(2 * this.size);
+		}
+		this.tree = build();
+	}
+
+	private BinarySearchTree<Integer> build() {
+		BinarySearchTree<Integer> t = new BinarySearchTree<Integer>(this.balanced);
+		for (Integer key : this.keys) {
+			t.insert(key);
+		}
+		return t;
+	}
+
+	@Benchmark
+	public BinarySearchTree<Integer> insert() {
+		return build();
+	}
+
+	@Benchmark
+	public int contains() {
+		int found = 0;
+		for (Integer probe : this.probes) {
+			if (this.tree.contains(probe)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsNonBST() {
+		int found = 0;
+		for (int i = 0; i < 100; i++) {
+			if (this.tree.containsNonBST(this.probes[i])) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	// builds a tree and empties it again in insertion order
+	@Benchmark
+	public boolean insertThenRemove() {
+		BinarySearchTree<Integer> t = build();
+		for (Integer key : this.keys) {
+			t.remove(key);
+		}
+		return t.isEmpty();
+	}
+
+	@Benchmark
+	public long sizeAndHeight() {
+		return this.tree.size() + this.tree.height();
+	}
+
+	@Benchmark
+	public void inOrderIterator(Blackhole blackhole) {
+		for (Integer key : this.tree) {
+			blackhole.consume(key);
+		}
+	}
+
+	@Benchmark
+	public void preOrderIterator(Blackhole blackhole) {
+		Iterator<Integer> it = this.tree.preOrderIterator();
+		while (it.hasNext()) {
+			blackhole.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void inefficientIterator(Blackhole blackhole) {
+		Iterator<Integer> it = this.tree.inefficientIterator();
+		while (it.hasNext()) {
+			blackhole.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void toArray(Blackhole blackhole) {
+		blackhole.consume(this.tree.toArray());
+		blackhole.consume(this.tree.toArrayList());
+	}
+}
@@ -0,0 +1,132 @@
+package trees;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Every public PriorityQueue operation over keys added in random order, in
+ * ascending order, or in descending order. Descending is the adversarial
+ * case for a min-heap: every add moves the new key all the way to the root.
+ *
+ * benchmarks/pom.xml runs JMH with -prof gc, so allocation per operation is
+ * reported next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PriorityQueueBenchmark {
+	@Param({ "1000", "100000" })
+	int size;
+
+	@Param({ "RANDOM", "SORTED", "ADVERSARIAL" })
+	String distribution;
+
+	Integer[] keys;
+	PriorityQueue<Integer> queue;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		this.keys = new Integer[this.size];
+		for (int i = 0; i < this.size; i++) {
+			switch (this.distribution) {
+			case "SORTED":
+				this.keys[i] = i;
+				break;
+			case "ADVERSARIAL":
+				this.keys[i] = this.size - i;
+				break;
+			default:
+				this.keys[i] = random.nextInt();
+			}
+		}
+		this.queue = fill();
+	}
+
+	private PriorityQueue<Integer> fill() {
+		PriorityQueue<Integer> q = new PriorityQueue<Integer>();
+		for (Integer key : this.keys) {
+			q.add(key);
+		}
+		return q;
+	}
+
+	@Benchmark
+	public PriorityQueue<Integer> add() {
+		return fill();
+	}
+
+	@Benchmark
+	public PriorityQueue<Integer> offer() {
+		PriorityQueue<Integer> q = new PriorityQueue<Integer>();
+		for (Integer key : this.keys) {
+			q.offer(key);
+		}
+		return q;
+	}
+
+	// fills a queue and drains it, so the timing includes the adds
+	@Benchmark
+	public long addThenPoll() {
+		PriorityQueue<Integer> q = fill();
+		long sum = 0;
+		while (q.peek() != null) {
+			sum += q.poll();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public boolean addThenRemove() {
+		PriorityQueue<Integer> q = fill();
+		for (int i = 0; i < 100; i++) {
+			q.remove(this.keys[i]);
+		}
+		return q.isEmpty();
+	}
+
+	@Benchmark
+	public int contains() {
+		int found = 0;
+		for (int i = 0; i < 100; i++) {
+			if (this.queue.contains(this.keys[this.keys.length - 1 - i])) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public void iterator(Blackhole blackhole) {
+		Iterator<Integer> it = this.queue.iterator();
+		while (it.hasNext()) {
+			blackhole.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void toArray(Blackhole blackhole) {
+		blackhole.consume(this.queue.toArray());
+		blackhole.consume(this.queue.toArray(new Integer[0]));
+		blackhole.consume(this.queue.size());
+	}
+
+	@Benchmark
+	public int clear() {
+		PriorityQueue<Integer> q = fill();
+		q.clear();
+		return q.size();
+	}
+}
@@ -0,0 +1,87 @@
+package trees;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Walks random trees with each iterator, removing about half the elements
+ * on the way, and compares against a TreeSet: every element is returned
+ * exactly once and the tree ends up holding exactly the ones kept.
+ */
+class BinarySearchTreeIteratorTest {
+	private static final int TRIALS = 500;
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void inOrderRemove(boolean balanced) {
+		Random random = new Random(1);
+		for (int t = 0; t < TRIALS; t++) {
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			BinarySearchTree<Integer> tree = build(balanced, random, expected);
+			List<Integer> seen = new ArrayList<Integer>();
+			Iterator<Integer> it = tree.iterator();
+			while (it.hasNext()) {
+				Integer key = it.next();
+				seen.add(key);
+				if (random.nextBoolean()) {
+					it.remove();
+					expected.remove(key);
+				}
+			}
+			check(tree, expected, seen);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void preOrderRemove(boolean balanced) {
+		Random random = new Random(2);
+		for (int t = 0; t < TRIALS; t++) {
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			BinarySearchTree<Integer> tree = build(balanced, random, expected);
+			List<Integer> seen = new ArrayList<Integer>();
+			Iterator<Integer> it = tree.preOrderIterator();
+			if (balanced) {
+				it.next();
+				assertThrows(UnsupportedOperationException.class, it::remove);
+				continue;
+			}
+			while (it.hasNext()) {
+				Integer key = it.next();
+				seen.add(key);
+				if (random.nextBoolean()) {
+					it.remove();
+					expected.remove(key);
+				}
+			}
+			check(tree, expected, seen);
+		}
+	}
+
+	private static BinarySearchTree<Integer> build(boolean balanced, Random random, TreeSet<Integer> keys) {
+		BinarySearchTree<Integer> tree = new BinarySearchTree<Integer>(balanced);
+		for (int i = 0; i < 200; i++) {
+			int key = random.nextInt(1000);
+			assertEquals(keys.add(key), tree.insert(key));
+		}
+		return tree;
+	}
+
+	private static void check(BinarySearchTree<Integer> tree, TreeSet<Integer> expected, List<Integer> seen) {
+		TreeSet<Integer> distinct = new TreeSet<Integer>(seen);
+		assertEquals(seen.size(), distinct.size(), "returned twice");
+		assertTrue(distinct.containsAll(expected), "never returned");
+		assertEquals(new ArrayList<Integer>(expected), tree.toArrayList());
+		assertEquals(expected.size(), tree.size());
+	}
+}